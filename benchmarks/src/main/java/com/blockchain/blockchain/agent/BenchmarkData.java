@@ -0,0 +1,57 @@
+package com.blockchain.blockchain.agent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Dados usados pelos benchmarks: blocos encadeados criados diretamente, sem mineração,
+ * com hashes e dados do mesmo tamanho dos blocos reais.
+ */
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    /*
+     * Cria uma blockchain com a quantidade de blocos informada, começando pelo bloco Genesis.
+     */
+    static List<Block> chain(int size) {
+        List<Block> blocks = new ArrayList<>(size);
+        Block previous = new Genesis();
+        blocks.add(previous);
+        for (int index = 1; index < size; index++) {
+            previous = block(index, previous.getHash());
+            blocks.add(previous);
+        }
+        return blocks;
+    }
+
+    /*
+     * Cria um bloco com hash, raiz de Merkle e uma transação nos dados.
+     */
+    static Block block(int index, String previousHash) {
+        Transaction transaction = new Transaction("alice", "bob", index, 1);
+        Block block = new Block();
+        block.setIndex(index);
+        block.setPreviousHash(previousHash);
+        block.setCreator("bench");
+        block.setTimestamp(1_700_000_000_000L + index);
+        block.setNonce(index);
+        block.setData(Transaction.toData(List.of(transaction)));
+        block.setMerkleRoot(MerkleTree.root(block.getData()));
+        block.setHash(Utils.hash256(index + previousHash));
+        return block;
+    }
+
+    /*
+     * Cria uma mensagem com a quantidade de blocos informada, como uma resposta de sincronização.
+     */
+    static Message message(int blocks) {
+        return new Message.MessageBuilder()
+                .withType(Message.MESSAGE_TYPE.RSP_BLOCKS)
+                .withSender(1)
+                .withReceiver(2)
+                .withBlocks(chain(blocks))
+                .build();
+    }
+}
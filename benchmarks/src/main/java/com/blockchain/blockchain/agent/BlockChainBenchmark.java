@@ -0,0 +1,79 @@
+package com.blockchain.blockchain.agent;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Mede as operações da blockchain em memória para vários tamanhos:
+ * a inclusão de uma lista de blocos já conhecidos (BlockChain.add(List), que descarta as duplicatas),
+ * a leitura da ponta (getLatestBlock), da blockchain inteira (getBlocks, sem cópia) e de um bloco por hash,
+ * em texto (como nas requisições HTTP) e pela chave Hash32 (como nos caminhos internos).
+ * Nenhuma delas deve depender do tamanho da blockchain.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class BlockChainBenchmark {
+
+    static final int KNOWN_BLOCKS = 1000; // Blocos já conhecidos em cada chamada de add(List)
+
+    @Param({"1000", "100000", "1000000"})
+    int size;
+
+    private BlockChain chain;
+    private List<Block> known; // Os últimos blocos da blockchain, reenviados por um par
+    private String middleHash; // Hash de um bloco do meio da blockchain
+    private Hash32 middleKey; // Chave do mesmo hash
+
+    @Setup
+    public void setup() {
+        List<Block> blocks = BenchmarkData.chain(size);
+        chain = new BlockChain(blocks.get(0));
+        chain.add(blocks.subList(1, blocks.size()));
+        known = List.copyOf(blocks.subList(Math.max(0, size - KNOWN_BLOCKS), size));
+        middleHash = blocks.get(size / 2).getHash();
+        middleKey = Hash32.of(middleHash);
+    }
+
+    @Benchmark
+    public int addKnownBlocks() {
+        chain.add(known);
+        return chain.size();
+    }
+
+    @Benchmark
+    public Block latestBlock() {
+        return chain.getLatestBlock();
+    }
+
+    @Benchmark
+    public Block allBlocks() {
+        List<Block> blocks = chain.getBlocks();
+        return blocks.get(blocks.size() / 2);
+    }
+
+    @Benchmark
+    public Block blockByHash() {
+        return chain.getBlock(middleHash);
+    }
+
+    @Benchmark
+    public Block blockByKey() {
+        return chain.getBlock(middleKey);
+    }
+}
@@ -0,0 +1,42 @@
+package com.blockchain.blockchain.agent;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Mede o SHA-256 em hexadecimal (Utils.hash256), usado no hash inicial dos blocos e das transações.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HashBenchmark {
+
+    @Param({"80", "1024"})
+    int length; // Tamanho do texto, em caracteres
+
+    private String text;
+
+    @Setup
+    public void setup() {
+        text = "b".repeat(length);
+    }
+
+    @Benchmark
+    public String hash256() {
+        return Utils.hash256(text);
+    }
+}
@@ -0,0 +1,73 @@
+package com.blockchain.blockchain.agent;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Mede a codificação de uma mensagem com 1, 100 e 10 mil blocos: a serialização Java, ainda usada
+ * no formato antigo (blockchain.wire.legacy), e o formato binário do MessageCodec, usado por padrão.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MessageSerializationBenchmark {
+
+    @Param({"1", "100", "10000"})
+    int blocks;
+
+    private Message message;
+    private byte[] serialized; // Mensagem em serialização Java
+    private byte[] encoded; // Mensagem no formato binário
+
+    @Setup
+    public void setup() throws Exception {
+        message = BenchmarkData.message(blocks);
+        serialized = javaSerialize();
+        encoded = MessageCodec.encode(message);
+    }
+
+    @Benchmark
+    public byte[] javaSerialize() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(message);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public Object javaDeserialize() throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serialized))) {
+            return in.readObject();
+        }
+    }
+
+    @Benchmark
+    public byte[] codecEncode() throws IOException {
+        return MessageCodec.encode(message);
+    }
+
+    @Benchmark
+    public Message codecDecode() throws IOException {
+        return MessageCodec.decode(encoded);
+    }
+}
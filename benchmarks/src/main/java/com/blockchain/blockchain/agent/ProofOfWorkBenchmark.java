@@ -0,0 +1,48 @@
+package com.blockchain.blockchain.agent;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Mede a mineração de um bloco (ProofOfWork.run) em uma thread, para várias dificuldades.
+ * Cada execução usa um timestamp diferente, de forma que o resultado é a média sobre cabeçalhos distintos:
+ * o tempo esperado cresce 2^dificuldade, e o desvio reflete a variação natural da busca de nonce.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ProofOfWorkBenchmark {
+
+    @Param({"8", "12", "16"})
+    int difficulty;
+
+    private String previousHash;
+    private long timestamp;
+
+    @Setup
+    public void setup() {
+        previousHash = new Genesis().getHash();
+    }
+
+    @Benchmark
+    public Map<String, String> run() {
+        Block block = Block.unmined(1, previousHash, "bench", difficulty);
+        block.setTimestamp(timestamp++);
+        return new ProofOfWork(block).run(1);
+    }
+}
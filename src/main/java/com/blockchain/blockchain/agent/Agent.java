@@ -1,18 +1,22 @@
 package com.blockchain.blockchain.agent;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import io.micrometer.core.instrument.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import java.io.*;
-import java.net.ServerSocket;
-import java.net.Socket;
-import java.net.UnknownHostException;
-import java.util.Arrays;
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
-import java.util.concurrent.ThreadFactory;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.TimeUnit;
 
 import static com.blockchain.blockchain.agent.Message.MESSAGE_TYPE.*;
 
@@ -23,39 +27,75 @@ import static com.blockchain.blockchain.agent.Message.MESSAGE_TYPE.*;
  */
 public class Agent {
 
+    private static final Logger logger = LoggerFactory.getLogger(Agent.class);
+
     private String id;
     private String name;
     private String address;
     private int port;
-    private List<Agent> peers;
-    private ServerSocket serverSocket;
-    private ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(10);
-    private boolean listening = true;
+    private final PeerList peers = new PeerList(); // Pares conhecidos por este agente
+    private final Map<Integer, Long> removedPeers = new ConcurrentHashMap<>(); // Pares que saíram da rede: porta e fim da marca (nanoTime)
+    private final long removedPeerNanos = TimeUnit.MILLISECONDS.toNanos(AgentConfig.removedPeerMillis()); // Duração da marca
+    private PeerTransport transport; // Conexões persistentes com os outros agentes
+    private final boolean virtualThreads = AgentConfig.virtualThreads(); // Conexões em threads virtuais e mineração no pool compartilhado
+    // Executor das mensagens recebidas e das tarefas periódicas; no modo de threads virtuais, só das tarefas periódicas
+    private final ScheduledExecutorService executor = virtualThreads ? AgentExecutors.scheduler() : new ScheduledThreadPoolExecutor(10);
+    // Executor das rodadas de mineração; no modo de threads virtuais, um pool limitado de threads de plataforma
+    private final ScheduledExecutorService miningExecutor = virtualThreads ? AgentExecutors.mining() : executor;
+    private volatile boolean listening = true;
+    private volatile boolean mining; // Indica se as rodadas de mineração devem continuar
+    private volatile NetworkConditions networkConditions = NetworkConditions.NONE; // Latência e perda simuladas na entrega
+    private volatile BlockListener blockListener; // Observador dos blocos minerados e recebidos, usado em simulações
+    private volatile ChainEvents chainEvents; // Destino dos eventos de blocos, ponta e reorganização, se houver
     private BlockChain blockChain;
-
-    // Fábrica de threads para sincronização
-    private final ThreadFactory factory = new ThreadFactory() {
-        private AtomicInteger cnt = new AtomicInteger(0);
-
-        @Override
-        public Thread newThread(Runnable r) {
-            return new Thread(r, "sync-" + cnt.getAndIncrement());
-        }
-    };
+    private BlockTree blockTree; // Blocos recentes de todos os ramos conhecidos, para escolher o ramo principal
+    private final Set<MiningJob> miningJobs = ConcurrentHashMap.newKeySet(); // Trabalhos de mineração em andamento
+    private final MiningStats miningStats = new MiningStats(); // Contadores de mineração do agente
+    private final TransportStats transportStats = new TransportStats(); // Contadores das filas de envio aos pares
+    private final GossipStats gossipStats = new GossipStats(); // Contadores da propagação de blocos
+    private final SeenHashes seenBlocks = new SeenHashes(AgentConfig.gossipSeenSize()); // Blocos já recebidos ou anunciados
+    private final Mempool mempool = new Mempool(AgentConfig.mempoolSize()); // Transações pendentes
+    private final ChainSync sync = new ChainSync(this); // Sincronização incremental com os pares
+    private AgentMetrics metrics; // Métricas publicadas no Micrometer
+    private ScheduledFuture<?> syncRetry; // Tarefa periódica que repete pedidos de sincronização e troca pontas com um par
 
     // Construtor vazio para uso com Jackson
     public Agent() {
         id = UUID.randomUUID().toString();
     }
 
-    // Construtor principal para inicialização com parâmetros
+    // Construtor principal para inicialização com parâmetros; os agentes informados são os pares iniciais
     Agent(String name, String address, int port, Block root, List<Agent> agents) {
         id = UUID.randomUUID().toString();
         this.name = name;
         this.address = address;
         this.port = port;
-        this.peers = agents;
-        blockChain = new BlockChain(root);
+        for (Agent agent : agents) {
+            if (!agent.getId().equals(id)) {
+                peers.add(new PeerList.Peer(agent.getAddress(), agent.getPort()));
+            }
+        }
+        blockChain = openBlockChain(root);
+        blockTree = new BlockTree(blockChain.getBlocks());
+        metrics = new AgentMetrics(Metrics.globalRegistry, this);
+    }
+
+    /*
+     * Abre a blockchain do agente, carregando-a do disco quando a persistência está habilitada.
+     */
+    private BlockChain openBlockChain(Block root) {
+        String dataDirectory = AgentConfig.dataDirectory();
+        if (dataDirectory == null) {
+            return new BlockChain(root);
+        }
+        try {
+            BlockChain chain = new BlockChain(root, BlockLog.open(Paths.get(dataDirectory, name)));
+            logger.info("{} carregou {} blocos do disco", name, chain.size());
+            return chain;
+        } catch (IOException e) {
+            logger.error("{} não conseguiu abrir a blockchain em disco: {}", name, e.getMessage());
+            return new BlockChain(root);
+        }
     }
 
     /**
@@ -70,21 +110,282 @@ public class Agent {
         if (previousBlock == null) {
             return null;
         }
-        int index = previousBlock.getIndex() + 1;
-        Block block = new Block(index, previousBlock.getHash(), name);
-        System.out.println(String.format("%s criou um novo bloco %s", name, block.toString()));
-        broadcast(INFO_NEW_BLOCK, block);
+        Block block = mine(previousBlock);
+        if (block == null) {
+            return null;
+        }
+        logger.info("{} criou um novo bloco {}", name, block);
+        BlockListener listener = blockListener;
+        if (listener != null) {
+            listener.onMined(this, block);
+        }
+        seenBlocks.add(block.hashKey());
+        gossipStats.announced(gossip(block, 0));
         addBlock(block);
         return block;
     }
 
     /**
-     * Adiciona um bloco à blockchain se válido.
+     * Minera o bloco seguinte ao bloco informado em um trabalho cancelável, com a dificuldade
+     * exigida pela blockchain nessa altura.
+     * @return O bloco minerado, ou null se a ponta da blockchain mudou durante a mineração.
+     */
+    private Block mine(Block previousBlock) {
+        int difficulty = nextDifficulty(previousBlock);
+        if (difficulty < 0) {
+            return null;
+        }
+        // As transações de maior taxa são lidas sem bloqueio; só saem do mempool quando o bloco é aceito
+        String data = Transaction.toData(mempool.select(AgentConfig.blockTransactions()));
+        MiningJob job = new MiningJob(previousBlock, name, data, difficulty, miningStats);
+        miningJobs.add(job);
+        if (!listening) {
+            job.cancel(false); // O servidor parou depois do início da rodada: stopHost não viu este trabalho
+        }
+        long start = System.nanoTime();
+        try {
+            job.run();
+            if (job.isCancelled()) {
+                return null;
+            }
+            metrics.mined(System.nanoTime() - start);
+            return job.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            logger.error("{} falhou ao minerar sobre o bloco {}", name, previousBlock.getIndex(), e.getCause());
+            return null;
+        } finally {
+            miningJobs.remove(job);
+        }
+    }
+
+    /**
+     * Retorna a dificuldade exigida do bloco seguinte ao bloco informado, ou -1 se ele não for mais conhecido.
+     */
+    private synchronized int nextDifficulty(Block previousBlock) {
+        return blockTree.nextDifficulty(previousBlock.hashKey());
+    }
+
+    /**
+     * Adiciona a blockchain recebida de um par. A sequência inteira é validada antes
+     * (prova de trabalho em paralelo, depois o encadeamento) e apenas os blocos anteriores
+     * ao primeiro bloco inválido são adicionados. Os blocos já conhecidos são ignorados
+     * e um ramo com mais trabalho acumulado passa a ser o ramo principal.
+     * @param blocks Os blocos recebidos.
+     */
+    void addBlocks(List<Block> blocks) {
+        int invalid = ChainValidator.validate(null, blocks);
+        if (invalid != ChainValidator.VALID) {
+            logger.warn("{} recebeu uma blockchain inválida a partir da altura {}", name, invalid);
+            metrics.rejected(AgentMetrics.Rejection.INVALID_CHAIN);
+        }
+        for (Block block : blocks) {
+            if (invalid != ChainValidator.VALID && block.getIndex() >= invalid) {
+                return;
+            }
+            if (!addBlock(block, true)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Adiciona um bloco à árvore de blocos se válido e atualiza a blockchain
+     * para o ramo com mais trabalho acumulado, reorganizando-a se necessário.
+     * @param block O bloco a ser adicionado.
+     * @return true se o bloco foi aceito ou já era conhecido.
+     */
+    boolean addBlock(Block block) {
+        return addBlock(block, false);
+    }
+
+    /**
+     * Adiciona um bloco à árvore de blocos.
      * @param block O bloco a ser adicionado.
+     * @param validated true se a prova de trabalho e a raiz de Merkle do bloco já foram conferidas pelo ChainValidator.
+     * @return true se o bloco foi aceito ou já era conhecido.
      */
-    void addBlock(Block block) {
-        if (isBlockValid(block)) {
-            blockChain.add(block);
+    boolean addBlock(Block block, boolean validated) {
+        BlockTree.Status status = connect(block, validated);
+        return status != BlockTree.Status.ORPHAN && status != BlockTree.Status.INVALID
+                && status != BlockTree.Status.INVALID_TIMESTAMP;
+    }
+
+    /**
+     * Adiciona um bloco à árvore de blocos e retorna o que aconteceu com ele.
+     * @param block O bloco a ser adicionado.
+     * @param validated true se a prova de trabalho e a raiz de Merkle do bloco já foram conferidas pelo ChainValidator.
+     * @return O resultado da inclusão; INVALID também para um bloco malformado ou com prova de trabalho inválida.
+     */
+    private synchronized BlockTree.Status connect(Block block, boolean validated) {
+        if (!isBlockValid(block)) {
+            return BlockTree.Status.INVALID;
+        }
+        if (blockChain.contains(block.hashKey())) {
+            metrics.block(BlockTree.Status.DUPLICATE);
+            return BlockTree.Status.DUPLICATE; // Já está no ramo principal, inclusive abaixo da janela da árvore
+        }
+        if (!validated && !ChainValidator.isValid(block)) {
+            logger.warn("Prova de trabalho ou raiz de Merkle inválida para o bloco {}", block.getIndex());
+            metrics.rejected(AgentMetrics.Rejection.INVALID_PROOF);
+            return BlockTree.Status.INVALID;
+        }
+        BlockTree.Result result = blockTree.add(block);
+        metrics.block(result.status());
+        BlockListener listener = blockListener;
+        if (listener != null) {
+            listener.onBlock(this, block, result.status());
+        }
+        switch (result.status()) {
+            case EXTENDED:
+                blockChain.add(block);
+                mempool.removeAll(Transaction.fromData(block.getData()));
+                break;
+            case REORGANIZED:
+                // Desfaz o ramo antigo até o ancestral comum e aplica o novo ramo
+                blockChain.truncate(result.connected().get(0).getIndex());
+                result.connected().forEach(blockChain::add);
+                result.disconnected().forEach(b -> mempool.restoreAll(Transaction.fromData(b.getData())));
+                result.connected().forEach(b -> mempool.removeAll(Transaction.fromData(b.getData())));
+                logger.info("{} reorganizou a blockchain: {} blocos desconectados, {} conectados, nova ponta {}",
+                        name, result.disconnected().size(), result.connected().size(), block.getIndex());
+                break;
+            case ORPHAN:
+                logger.debug("Bloco anterior desconhecido para o bloco {}", block.getIndex());
+                break;
+            case INVALID:
+                logger.warn("Índice ou dificuldade inválidos para o bloco anterior: {}", block.getIndex());
+                break;
+            case INVALID_TIMESTAMP:
+                logger.warn("Timestamp inválido para o bloco {}: {}", block.getIndex(), block.getTimestamp());
+                break;
+            default:
+                break;
+        }
+        publish(block, result);
+        if (result.isTipChanged()) {
+            cancelStaleMining();
+        }
+        return result.status();
+    }
+
+    /**
+     * Trata um bloco novo anunciado por um par. Uma cópia de um bloco já visto é descartada
+     * sem ser validada de novo; um bloco que passa a ser a ponta é repassado a outros pares sorteados.
+     * Um bloco que fica em um ramo lateral não é repassado, o que evita propagar ramos que perderam a corrida.
+     * @param block O bloco recebido.
+     * @param sender Porta do par que enviou o bloco.
+     * @return false se o bloco já tinha sido visto.
+     */
+    boolean onNewBlock(Block block, int sender) {
+        if (!seenBlocks.add(block.hashKey())) {
+            gossipStats.duplicate();
+            return false;
+        }
+        BlockTree.Status status = connect(block, false);
+        if (status == BlockTree.Status.EXTENDED || status == BlockTree.Status.REORGANIZED) {
+            gossipStats.relayed(gossip(block, sender));
+        }
+        return true;
+    }
+
+    /**
+     * Registra o par que escuta na porta informada, conhecido por uma mensagem recebida dele.
+     * Os pares são identificados pela porta, no mesmo endereço deste agente.
+     * @return false se o par saiu da rede há pouco: a mensagem ainda estava a caminho e deve ser ignorada.
+     */
+    boolean learnPeer(int peerPort) {
+        Long until = removedPeers.get(peerPort);
+        if (until != null) {
+            if (System.nanoTime() - until < 0) {
+                return false;
+            }
+            removedPeers.remove(peerPort, until); // A marca expirou: um agente nessa porta volta a ser um par
+        }
+        if (peerPort > 0 && peerPort != port && peers.find(peerPort) == null) {
+            peers.add(new PeerList.Peer(address, peerPort));
+        }
+        return true;
+    }
+
+    /**
+     * Adiciona o par que passou a escutar na porta informada, mesmo que um par anterior nessa porta tenha saído da rede.
+     */
+    void addPeer(int peerPort) {
+        removedPeers.remove(peerPort);
+        learnPeer(peerPort);
+    }
+
+    /**
+     * Esquece o par que escutava na porta informada, quando ele sai da rede.
+     * As mensagens dele ainda a caminho não o registram de novo: a porta volta a ser um par por addPeer
+     * ou pela primeira mensagem recebida depois de AgentConfig.removedPeerMillis.
+     */
+    void forgetPeer(int peerPort) {
+        long now = System.nanoTime();
+        removedPeers.values().removeIf(until -> now - until >= 0); // Descarta as marcas expiradas, que nunca se acumulam
+        removedPeers.put(peerPort, now + removedPeerNanos);
+        PeerList.Peer peer = peers.find(peerPort);
+        if (peer != null) {
+            peers.remove(peer);
+        }
+        sync.forgetTip(peerPort); // A ponta que ele anunciou não será mais servida
+    }
+
+    /**
+     * Indica se o par que escuta na porta informada pode receber mensagens, ou seja, se não está em espera após falhas de conexão.
+     */
+    boolean isReachable(int peerPort) {
+        PeerTransport current = transport;
+        return current == null || current.isReachable(address, peerPort);
+    }
+
+    /**
+     * Submete uma transação ao mempool deste agente, para ser incluída nos próximos blocos minerados.
+     * @param transaction A transação submetida.
+     * @return O resultado da submissão.
+     */
+    Mempool.Status submitTransaction(Transaction transaction) {
+        return mempool.add(transaction);
+    }
+
+    /**
+     * Monta a prova de inclusão de uma transação em um bloco do ramo principal.
+     * @param height Altura do bloco.
+     * @param transactionHash Hash da transação.
+     * @return A prova, ou null se o bloco ou a transação não forem encontrados.
+     */
+    public MerkleProof getProof(int height, String transactionHash) {
+        Block block = blockChain.getBlock(height);
+        return block == null ? null : MerkleProof.of(block, transactionHash);
+    }
+
+    /**
+     * Retorna a quantidade de transações pendentes no mempool deste agente.
+     */
+    public int getPendingTransactions() {
+        return mempool.size();
+    }
+
+    /**
+     * Indica se o bloco com o hash informado é conhecido, no ramo principal ou em um ramo lateral.
+     */
+    synchronized boolean hasBlock(Hash32 hash) {
+        return blockTree.contains(hash) || blockChain.contains(hash);
+    }
+
+    /**
+     * Cancela os trabalhos de mineração que não estendem mais a ponta da blockchain,
+     * seja porque a ponta avançou, seja porque o ramo principal mudou.
+     */
+    private void cancelStaleMining() {
+        Hash32 tipHash = blockChain.getLatestBlock().hashKey();
+        for (MiningJob job : miningJobs) {
+            if (!tipHash.equals(job.previousHashKey())) {
+                job.cancel(false);
+            }
         }
     }
 
@@ -92,49 +393,95 @@ public class Agent {
      * Inicia o servidor para aceitar conexões de outros agentes.
      */
     void startHost() {
-        executor.execute(() -> {
-            try {
-                serverSocket = new ServerSocket(port);
-                System.out.println(String.format("Servidor %s iniciado", serverSocket.getLocalPort()));
-                listening = true;
-                while (listening) {
-                    AgentServerThread thread = new AgentServerThread(Agent.this, serverSocket.accept());
-                    thread.start();
+        transport = new PeerTransport(port, new AgentMessageHandler(this), executor, virtualThreads, transportStats);
+        try {
+            transport.start();
+            logger.info("Servidor {} iniciado", port);
+            listening = true;
+        } catch (IOException e) {
+            logger.error("Não foi possível escutar na porta {}", port, e);
+        }
+        // Anuncia a própria ponta: os pares à frente respondem com a deles e apenas os blocos
+        // posteriores à ponta local são baixados, inclusive para uma blockchain restaurada do disco
+        broadcast(sync.tipMessage());
+        syncRetry = executor.scheduleWithFixedDelay(this::syncRound, 1, 1, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Repete os pedidos de sincronização sem resposta e anuncia a ponta a um par sorteado.
+     * A fofoca de blocos pode não alcançar algum agente; a troca periódica de pontas garante que
+     * ele descubra o bloco que perdeu, mesmo quando não há blocos novos para anunciar.
+     */
+    private void syncRound() {
+        try {
+            sync.retryStaleRequests();
+            if (transport != null) {
+                for (PeerList.Peer peer : peers.sample(1, p -> transport.isReachable(p.host(), p.port()))) {
+                    sendMessage(peer, INFO_TIP, PeerTransport.frame(sync.tipMessage()), true);
                 }
-                serverSocket.close();
-            } catch (IOException e) {
-                System.err.println("Não foi possível escutar na porta " + port);
             }
-        });
-        broadcast(REQ_ALL_BLOCKS, null);
+        } catch (Exception e) {
+            logger.error("{} falhou na rodada de sincronização", name, e); // Uma exceção cancelaria as próximas execuções da tarefa periódica
+        }
     }
 
     /**
-     * Para o servidor de aceitação de conexões.
+     * Para o servidor e fecha as conexões com os outros agentes.
      */
     void stopHost() {
         listening = false;
-        try {
-            serverSocket.close();
-        } catch (IOException e) {
-            e.printStackTrace();
+        miningJobs.forEach(job -> job.cancel(false)); // Libera o pool de mineração sem esperar o fim da rodada
+        if (syncRetry != null) {
+            syncRetry.cancel(false);
+        }
+        if (transport != null) {
+            transport.stop();
+        }
+        if (!virtualThreads) {
+            executor.shutdownNow(); // O executor é só deste agente; os pools compartilhados (AgentExecutors) continuam ativos
         }
+        metrics.close();
+        blockChain.close();
     }
 
     /**
-     * Inicia o processo de mineração de novos blocos periodicamente.
+     * Inicia o processo de mineração de novos blocos.
+     * Cada rodada minera um bloco e agenda a rodada seguinte, sem ocupar uma thread entre as rodadas.
+     * Não há pausa entre as rodadas: o ritmo dos blocos é dado pela dificuldade, ajustada pela blockchain.
      */
     void startMine() {
-        executor.execute(() -> {
-            try {
-                while (true) {
-                    createBlock();
-                    Thread.sleep(1000);
-                }
-            } catch (Exception e) {
-                e.printStackTrace();
+        mining = true;
+        miningExecutor.execute(this::mineRound);
+    }
+
+    /**
+     * Para a mineração: a rodada em andamento é cancelada e nenhuma outra é agendada.
+     * O agente continua recebendo e repassando blocos.
+     */
+    void stopMine() {
+        mining = false;
+        miningJobs.forEach(job -> job.cancel(false));
+    }
+
+    private void mineRound() {
+        if (!listening || !mining) {
+            return;
+        }
+        long delay = 0;
+        try {
+            if (sync.isBehind()) {
+                // Não minera sobre uma ponta que os pares já ultrapassaram: espera a sincronização
+                delay = 100;
+            } else {
+                createBlock();
             }
-        });
+            // Minerado ou cancelado por um bloco concorrente, recomeça logo sobre a nova ponta
+        } catch (Exception e) {
+            logger.error("{} falhou na rodada de mineração", name, e);
+        }
+        if (listening && mining) {
+            miningExecutor.schedule(this::mineRound, delay, TimeUnit.MILLISECONDS);
+        }
     }
 
     /**
@@ -146,74 +493,236 @@ public class Agent {
         return blockChain.getBlocks();
     }
 
-    // Métodos privados auxiliares
+    /**
+     * Retorna até count blocos a partir da altura informada.
+     */
+    List<Block> getBlocks(int from, int count) {
+        return blockChain.getBlocks(from, count);
+    }
+
+    /**
+     * Retorna o bloco na altura informada, ou null se não existir.
+     */
+    Block getBlock(int height) {
+        return blockChain.getBlock(height);
+    }
+
+    /**
+     * Retorna o bloco do ramo principal com o hash informado, ou null se não existir.
+     */
+    Block getBlock(String hash) {
+        return blockChain.getBlock(hash);
+    }
+
+    /**
+     * Retorna o componente de sincronização deste agente.
+     */
+    ChainSync getSync() {
+        return sync;
+    }
+
+    /**
+     * Retorna os contadores de mineração deste agente.
+     * @return Contadores de mineração.
+     */
+    public MiningStats getMiningStats() {
+        return miningStats;
+    }
+
+    /**
+     * Retorna os contadores das filas de envio aos pares deste agente.
+     * @return Contadores das filas de envio.
+     */
+    public TransportStats getTransportStats() {
+        return transportStats;
+    }
+
+    /**
+     * Retorna os contadores da propagação de blocos deste agente.
+     * @return Contadores da propagação de blocos.
+     */
+    public GossipStats getGossipStats() {
+        return gossipStats;
+    }
+
+    /**
+     * Retorna as métricas deste agente.
+     */
+    AgentMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Retorna a quantidade de pares conhecidos por este agente.
+     */
+    public int getPeerCount() {
+        return peers.size();
+    }
+
+    /**
+     * Executa a tarefa depois do atraso informado, fora da thread do agendador.
+     * Usado para entregar mensagens com a latência simulada pelas condições da rede.
+     */
+    void deliverLater(Runnable task, long delay) {
+        if (!listening) {
+            return; // O agente saiu da rede e o seu executor pode já estar encerrado
+        }
+        Runnable deliver = virtualThreads ? () -> Thread.startVirtualThread(task) : task;
+        executor.schedule(deliver, delay, TimeUnit.MILLISECONDS);
+    }
+
+    ScheduledExecutorService getExecutor() {
+        return executor;
+    }
+
+    NetworkConditions getNetworkConditions() {
+        return networkConditions;
+    }
+
+    void setNetworkConditions(NetworkConditions networkConditions) {
+        this.networkConditions = networkConditions == null ? NetworkConditions.NONE : networkConditions;
+    }
 
-    private Block getLatestBlock() {
+    void setBlockListener(BlockListener blockListener) {
+        this.blockListener = blockListener;
+    }
+
+    void setChainEvents(ChainEvents chainEvents) {
+        this.chainEvents = chainEvents;
+    }
+
+    /**
+     * Retorna a ponta da blockchain deste agente.
+     */
+    Block getLatestBlock() {
         if (blockChain.isEmpty()) {
             return null;
         }
         return blockChain.getLatestBlock();
     }
 
-    private boolean isBlockValid(Block block) {
-        Block latestBlock = getLatestBlock();
-        if (latestBlock == null) {
-            return false;
+    // Métodos privados auxiliares
+
+    /**
+     * Publica os eventos da inclusão de um bloco: o bloco, a reorganização e a nova ponta.
+     * A publicação não bloqueia; assinantes lentos são desconectados pelo ChainEvents.
+     */
+    private void publish(Block block, BlockTree.Result result) {
+        ChainEvents events = chainEvents;
+        if (events == null) {
+            return;
+        }
+        switch (result.status()) {
+            case EXTENDED, SIDE_BRANCH -> events.publish(ChainEvent.block(name, block, result.status()));
+            case REORGANIZED -> {
+                events.publish(ChainEvent.block(name, block, result.status()));
+                events.publish(ChainEvent.reorg(name, block, result));
+            }
+            default -> {
+                return;
+            }
+        }
+        if (result.isTipChanged()) {
+            events.publish(ChainEvent.tip(name, block));
         }
-        int expected = latestBlock.getIndex() + 1;
-        if (block.getIndex() != expected) {
-            System.out.println(String.format("Índice inválido. Esperado: %s Atual: %s", expected, block.getIndex()));
+    }
+
+    private boolean isBlockValid(Block block) {
+        if (block == null || block.getIndex() < 0) {
+            logger.warn("Bloco inválido: {}", block);
+            metrics.rejected(AgentMetrics.Rejection.MALFORMED);
             return false;
         }
-        if (!Objects.equals(block.getPreviousHash(), latestBlock.getHash())) {
-            System.out.println("Código hash não corresponde");
+        if (block.hashKey() == null || block.previousHashKey() == null) {
+            logger.warn("Código hash não informado para o bloco {}", block.getIndex());
+            metrics.rejected(AgentMetrics.Rejection.MISSING_HASH);
             return false;
         }
         return true;
     }
 
-    private void broadcast(Message.MESSAGE_TYPE type, Block block) {
-        peers.forEach(peer -> sendMessage(peer, type, peer.getAddress(), peer.getPort(), block));
+    /**
+     * Repassa o bloco a alguns pares sorteados, em vez de enviá-lo a todos: cada par que aceita
+     * o bloco o repassa da mesma forma, e a rede inteira recebe o bloco em O(log n) saltos
+     * com O(n log n) mensagens no total, em vez de O(n²). O par de origem e os pares inalcançáveis
+     * não são sorteados.
+     * @param block O bloco a ser repassado.
+     * @param from Porta do par que enviou o bloco, ou 0 para um bloco minerado por este agente.
+     * @return A quantidade de pares que receberam o bloco.
+     */
+    private int gossip(Block block, int from) {
+        if (transport == null) {
+            return 0;
+        }
+        List<PeerList.Peer> targets = peers.sample(fanout(),
+                peer -> peer.port() != from && transport.isReachable(peer.host(), peer.port()));
+        Message message = new Message.MessageBuilder()
+                .withType(INFO_NEW_BLOCK)
+                .withSender(this.port)
+                .withBlocks(List.of(block)).build();
+        try {
+            byte[] frame = PeerTransport.frame(message);
+            targets.forEach(peer -> sendMessage(peer, INFO_NEW_BLOCK, frame, false));
+        } catch (IOException e) {
+            logger.error("{} não conseguiu codificar o bloco {}", name, block.getIndex(), e);
+            return 0;
+        }
+        return targets.size();
+    }
+
+    /*
+     * Quantidade de pares que recebem cada bloco: a configurada ou log2(n) + 1.
+     */
+    private int fanout() {
+        int configured = AgentConfig.gossipFanout();
+        if (configured > 0) {
+            return configured;
+        }
+        return 32 - Integer.numberOfLeadingZeros(Math.max(1, peers.size()));
     }
 
-    private void sendMessage(Agent agent, Message.MESSAGE_TYPE type, String host, int port, Block... blocks) {
-        if (agent.getId().equals(this.id)) {
+    /**
+     * Envia a mensagem a todos os pares conhecidos. A mensagem é codificada uma única vez
+     * e o mesmo quadro é enfileirado na conexão persistente de cada par. Um anúncio de ponta
+     * ainda não enviado a um par lento é substituído pelo anúncio mais novo.
+     */
+    private void broadcast(Message message) {
+        if (transport == null) {
             return;
         }
-        try (Socket peer = new Socket(host, port);
-             ObjectOutputStream out = new ObjectOutputStream(peer.getOutputStream());
-             ObjectInputStream in = new ObjectInputStream(peer.getInputStream())) {
-
-            Object fromPeer;
-            while ((fromPeer = in.readObject()) != null) {
-                if (fromPeer instanceof Message) {
-                    Message msg = (Message) fromPeer;
-                    System.out.println(String.format("%d recebeu: %s", this.port, msg.toString()));
-                    if (READY == msg.type) {
-                        out.writeObject(new Message.MessageBuilder()
-                                .withType(type)
-                                .withReceiver(port)
-                                .withSender(this.port)
-                                .withBlocks(Arrays.asList(blocks)).build());
-                    } else if (RSP_ALL_BLOCKS == msg.type) {
-                        if (!msg.blocks.isEmpty() && this.blockChain.size() == 1) {
-                            blockChain.add((Block) msg.blocks);   // Pode causar erro
-                        }
-                        break;
-                    }
-                }
-            }
-        } catch (UnknownHostException e) {
-            System.err.println(String.format("Host desconhecido %s %d", host, port));
+        byte[] frame;
+        try {
+            frame = PeerTransport.frame(message);
         } catch (IOException e) {
-            System.err.println(String.format("%s não conseguiu I/O para a conexão com %s. Tentando novamente...%n", getPort(), port));
-            try {
-                Thread.sleep(100);
-            } catch (InterruptedException e1) {
-                e1.printStackTrace();
-            }
-        } catch (ClassNotFoundException e) {
-            e.printStackTrace();
+            logger.error("{} não conseguiu codificar a mensagem {}", name, message.type, e);
+            return;
+        }
+        boolean replace = PeerTransport.isReplaceable(message);
+        peers.all().forEach(peer -> sendMessage(peer, message.type, frame, replace));
+    }
+
+    /**
+     * Envia uma mensagem ao par que escuta na porta informada.
+     */
+    void send(int peerPort, Message message) {
+        PeerList.Peer peer = peers.find(peerPort);
+        try {
+            sendMessage(peer != null ? peer : new PeerList.Peer(address, peerPort),
+                    message.type, PeerTransport.frame(message), PeerTransport.isReplaceable(message));
+        } catch (IOException e) {
+            logger.error("{} não conseguiu codificar a mensagem {}", name, message.type, e);
+        }
+    }
+
+    private void sendMessage(PeerList.Peer peer, Message.MESSAGE_TYPE type, byte[] frame, boolean replace) {
+        if (peer.port() == port || transport == null) {
+            return;
+        }
+        try {
+            transport.send(peer.host(), peer.port(), frame, replace);
+            metrics.sent(type);
+        } catch (IOException e) {
+            logger.debug("{} não conseguiu I/O para a conexão com {}: {}", port, peer.port(), e.getMessage());
         }
     }
 
@@ -250,4 +759,23 @@ public class Agent {
     public void setAddress(String address) {
         this.address = address;
     }
+
+    /**
+     * Observador dos blocos de um agente. É chamado na thread que minerou ou recebeu o bloco,
+     * com o agente bloqueado durante onBlock, e por isso precisa retornar rapidamente.
+     */
+    interface BlockListener {
+
+        /**
+         * Chamado quando o agente minera um bloco, antes de anunciá-lo aos pares.
+         */
+        default void onMined(Agent agent, Block block) {
+        }
+
+        /**
+         * Chamado quando um bloco é entregue à árvore de blocos do agente, com o resultado da inclusão.
+         */
+        default void onBlock(Agent agent, Block block, BlockTree.Status status) {
+        }
+    }
 }
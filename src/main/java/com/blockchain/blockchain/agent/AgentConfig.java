@@ -0,0 +1,195 @@
+package com.blockchain.blockchain.agent;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Locale;
+
+/*
+ * Classe que centraliza as configurações dos agentes.
+ * Os valores são lidos de propriedades do sistema (ex.: -Dblockchain.mining.threads=8),
+ * já que os agentes são criados fora do contexto do Spring.
+ */
+public final class AgentConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(AgentConfig.class);
+
+    private AgentConfig() {
+    }
+
+    /*
+     * Quantidade de threads usadas na busca paralela de nonce.
+     * O valor 1 mantém a mineração sequencial na thread que cria o bloco.
+     */
+    public static int miningThreads() {
+        return Math.max(1, Integer.getInteger("blockchain.mining.threads", 1));
+    }
+
+    /*
+     * Indica se as mensagens devem ser enviadas no formato antigo (serialização Java),
+     * para compatibilidade com agentes que ainda não leem o formato binário.
+     */
+    public static boolean legacyWireFormat() {
+        return Boolean.getBoolean("blockchain.wire.legacy");
+    }
+
+    /*
+     * Indica se as mensagens recebidas no formato antigo (serialização Java) devem ser aceitas,
+     * sem enviar nesse formato. Com blockchain.wire.legacy elas também são aceitas.
+     */
+    public static boolean legacyWireRead() {
+        return Boolean.getBoolean("blockchain.wire.legacy.read");
+    }
+
+    /*
+     * Diretório onde cada agente grava sua blockchain (um subdiretório por agente).
+     * Sem esta propriedade a blockchain fica apenas em memória.
+     */
+    public static String dataDirectory() {
+        return System.getProperty("blockchain.data.dir");
+    }
+
+    /*
+     * Tamanho máximo de cada arquivo de segmento do registro em disco, em bytes.
+     */
+    public static long storeSegmentBytes() {
+        return Math.min(Integer.MAX_VALUE, Math.max(1024, Long.getLong("blockchain.store.segment.bytes", 64L * 1024 * 1024)));
+    }
+
+    /*
+     * Política de sincronização com o disco: always, batch ou never.
+     * Um valor desconhecido usa a política batch, como as demais configurações usam o valor padrão.
+     */
+    public static BlockLog.FsyncPolicy storeFsyncPolicy() {
+        String value = System.getProperty("blockchain.store.fsync", "batch");
+        try {
+            return BlockLog.FsyncPolicy.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Política de sincronização desconhecida em blockchain.store.fsync: {}; usando batch", value);
+            return BlockLog.FsyncPolicy.BATCH;
+        }
+    }
+
+    /*
+     * Quantidade de blocos gravados entre sincronizações na política batch.
+     */
+    public static int storeFsyncBatch() {
+        return Integer.getInteger("blockchain.store.fsync.batch", 64);
+    }
+
+    /*
+     * Quantidade máxima de transações pendentes no mempool de cada agente.
+     * Acima deste limite, as transações com a menor taxa são descartadas.
+     */
+    public static int mempoolSize() {
+        return Math.max(1, Integer.getInteger("blockchain.mempool.size", 100_000));
+    }
+
+    /*
+     * Quantidade máxima de transações incluídas em cada bloco.
+     */
+    public static int blockTransactions() {
+        return Math.max(0, Integer.getInteger("blockchain.block.transactions", 1000));
+    }
+
+    /*
+     * Indica se as conexões e os envios entre agentes usam threads virtuais (Java 21+).
+     * Nesse modo a mineração roda em um pool limitado de threads de plataforma, compartilhado pelos agentes.
+     */
+    public static boolean virtualThreads() {
+        return Boolean.getBoolean("blockchain.threads.virtual");
+    }
+
+    /*
+     * Quantidade de threads de plataforma do pool de mineração compartilhado do modo de threads virtuais.
+     */
+    public static int miningPoolSize() {
+        return Math.max(1, Integer.getInteger("blockchain.mining.pool", Runtime.getRuntime().availableProcessors()));
+    }
+
+    /*
+     * Tamanho máximo, em bytes, de um quadro recebido de um par; um quadro maior fecha a conexão.
+     * O padrão comporta o maior quadro legítimo, uma página de blocos da sincronização (ChainSync.PAGE_SIZE)
+     * com blockTransactions transações de até 128 bytes em cada bloco, e nunca fica abaixo de 1 MB.
+     */
+    public static int maxFrameBytes() {
+        long page = (long) ChainSync.PAGE_SIZE * (1024 + 128L * blockTransactions());
+        long value = Long.getLong("blockchain.net.frame.max", Math.max(1024 * 1024, page));
+        return (int) Math.max(1024, Math.min(Integer.MAX_VALUE - 8, value));
+    }
+
+    /*
+     * Quantidade máxima de quadros na fila de envio de cada conexão com um par.
+     */
+    public static int peerQueueSize() {
+        return Math.max(1, Integer.getInteger("blockchain.net.queue.size", 1024));
+    }
+
+    /*
+     * Tempo, em milissegundos, durante o qual as mensagens de um par que saiu da rede são ignoradas.
+     * Cobre as mensagens que ainda estavam a caminho; depois dele, um agente nessa porta volta a ser um par.
+     */
+    public static long removedPeerMillis() {
+        return Math.max(0L, Long.getLong("blockchain.peer.removed.ms", 10_000L));
+    }
+
+    /*
+     * Quantidade de pares sorteados para receber cada bloco novo.
+     * O valor 0 usa log2(n) + 1 pares, sendo n a quantidade de pares conhecidos, o que
+     * alcança a rede inteira em O(log n) saltos com alta probabilidade.
+     */
+    public static int gossipFanout() {
+        return Math.max(0, Integer.getInteger("blockchain.gossip.fanout", 0));
+    }
+
+    /*
+     * Quantidade de hashes de blocos já vistos lembrados por cada agente para descartar cópias repetidas.
+     */
+    public static int gossipSeenSize() {
+        return Math.max(1, Integer.getInteger("blockchain.gossip.seen", 8192));
+    }
+
+    /*
+     * Dificuldade do bloco raiz, em bits zero iniciais exigidos no hash; os blocos seguintes herdam
+     * e ajustam esse valor. Faz parte das regras da rede: todos os agentes precisam usar o mesmo valor.
+     */
+    public static int initialDifficulty() {
+        return Math.max(0, Math.min(Difficulty.MAX, Integer.getInteger("blockchain.difficulty", 16)));
+    }
+
+    /*
+     * Intervalo desejado entre blocos, em ms, usado no ajuste da dificuldade.
+     */
+    public static long blockIntervalMillis() {
+        return Math.max(1, Long.getLong("blockchain.block.interval.ms", 1000));
+    }
+
+    /*
+     * Quanto, em ms, o timestamp de um bloco recebido pode estar à frente do relógio local.
+     */
+    public static long maxFutureDriftMillis() {
+        return Math.max(0, Long.getLong("blockchain.block.drift.ms", 15_000));
+    }
+
+    /*
+     * Quantidade de blocos entre ajustes da dificuldade. Os valores 0 e 1 mantêm a dificuldade fixa.
+     */
+    public static int retargetInterval() {
+        return Math.max(0, Integer.getInteger("blockchain.retarget.interval", 10));
+    }
+
+    /*
+     * Quantidade máxima de eventos da blockchain aguardando consumo por assinante;
+     * um assinante que deixa a fila encher é desconectado.
+     */
+    public static int eventBufferSize() {
+        return Math.max(1, Integer.getInteger("blockchain.events.buffer", 256));
+    }
+
+    /*
+     * Quantidade de cabeçalhos de blocos mantidos no cache dos cabeçalhos servidos aos pares.
+     */
+    public static int headerCacheSize() {
+        return Math.max(1, Integer.getInteger("blockchain.header.cache", 4096));
+    }
+}
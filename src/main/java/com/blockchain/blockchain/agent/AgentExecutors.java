@@ -0,0 +1,50 @@
+package com.blockchain.blockchain.agent;
+
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Classe que reúne os executores compartilhados pelos agentes no modo de threads virtuais.
+ *
+ * A mineração roda em um pool limitado de threads de plataforma: cada rodada de mineração de um agente
+ * é uma tarefa, agendada de novo ao terminar, de forma que centenas de agentes dividem poucas threads.
+ * As tarefas periódicas (por exemplo, a repetição de pedidos de sincronização) usam uma única thread.
+ */
+final class AgentExecutors {
+
+    private static ScheduledThreadPoolExecutor mining;
+    private static ScheduledThreadPoolExecutor scheduler;
+
+    private AgentExecutors() {
+    }
+
+    /*
+     * Pool de mineração compartilhado, com AgentConfig.miningPoolSize() threads.
+     */
+    static synchronized ScheduledThreadPoolExecutor mining() {
+        if (mining == null) {
+            mining = new ScheduledThreadPoolExecutor(AgentConfig.miningPoolSize(), daemon("mine-"));
+        }
+        return mining;
+    }
+
+    /*
+     * Executor das tarefas periódicas dos agentes.
+     */
+    static synchronized ScheduledThreadPoolExecutor scheduler() {
+        if (scheduler == null) {
+            scheduler = new ScheduledThreadPoolExecutor(1, daemon("agent-timer-"));
+        }
+        return scheduler;
+    }
+
+    private static ThreadFactory daemon(String prefix) {
+        AtomicInteger count = new AtomicInteger(0);
+        return r -> {
+            Thread thread = new Thread(r, prefix + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
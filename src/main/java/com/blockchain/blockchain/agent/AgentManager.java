@@ -2,29 +2,81 @@ package com.blockchain.blockchain.agent;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * A classe AgentManager é responsável por gerenciar os agentes na rede blockchain.
  * Permite adicionar, buscar, deletar agentes e criar blocos para agentes específicos.
+ *
+ * Os agentes ficam em um índice concorrente por nome e em uma lista imutável, trocada por uma cópia
+ * a cada alteração. As consultas (requisições HTTP, painel) não usam bloqueio e nunca veem a lista
+ * mudar durante uma iteração; apenas as alterações, raras, são serializadas entre si.
  */
 public class AgentManager {
 
-    private List<Agent> agents = new ArrayList<>();  // Lista de agentes na rede
-    private static final Block root = new Genesis();  // Bloco raiz da blockchain
+    private final Map<String, Agent> agentsByName = new ConcurrentHashMap<>();  // Índice dos agentes por nome
+    private volatile List<Agent> agents = List.of();  // Agentes na rede, em ordem de criação
+    private final Object lock = new Object();  // Serializa a criação e a remoção de agentes
+    private final Block root;  // Bloco raiz da blockchain, com a dificuldade inicial
+    private volatile NetworkConditions networkConditions = NetworkConditions.NONE;  // Condições da rede aplicadas aos agentes criados
+    private final ChainEvents chainEvents = new ChainEvents();  // Eventos da blockchain de todos os agentes
+
+    /**
+     * Cria o gerenciador com o bloco raiz padrão, cuja dificuldade inicial vem da configuração.
+     */
+    public AgentManager() {
+        this(new Genesis());
+    }
+
+    /**
+     * Cria o gerenciador com o bloco raiz informado, compartilhado por todos os agentes criados.
+     *
+     * @param root Bloco raiz da blockchain
+     */
+    AgentManager(Block root) {
+        this.root = root;
+    }
 
     /**
      * Adiciona um novo agente à rede.
      *
      * @param name Nome do agente
      * @param port Porta na qual o agente será executado
-     * @return O agente criado
+     * @return O agente criado, ou null se já existe um agente com esse nome
      */
     public Agent addAgent(String name, int port) {
-        Agent agent = new Agent(name, "localhost", port, root, agents);  // Cria um novo agente
-        agent.startHost();  // Inicia o servidor do agente
-        agent.startMine();  // Inicia a mineração do agente
-        agents.add(agent);  // Adiciona o agente à lista de agentes
-        return agent;
+        synchronized (lock) {
+            if (agentsByName.containsKey(name)) {
+                return null;
+            }
+            Agent agent = new Agent(name, "localhost", port, root, agents);  // Os agentes existentes são os pares iniciais
+            agent.setNetworkConditions(networkConditions);
+            agent.setChainEvents(chainEvents);
+            agent.startHost();  // Inicia o servidor do agente
+            agent.startMine();  // Inicia a mineração do agente
+            for (Agent other : agents) {
+                other.addPeer(port);  // Inclusive quando um agente removido escutava na mesma porta
+            }
+            agentsByName.put(name, agent);
+            List<Agent> copy = new ArrayList<>(agents);
+            copy.add(agent);
+            agents = List.copyOf(copy);
+            return agent;
+        }
+    }
+
+    /**
+     * Define as condições da rede (latência, perda e partições) entre os agentes, para simulações.
+     * Vale para os agentes existentes e para os criados depois.
+     *
+     * @param networkConditions As condições da rede, ou null para a rede real
+     */
+    void setNetworkConditions(NetworkConditions networkConditions) {
+        this.networkConditions = networkConditions == null ? NetworkConditions.NONE : networkConditions;
+        for (Agent agent : agents) {
+            agent.setNetworkConditions(this.networkConditions);
+        }
     }
 
     /**
@@ -34,18 +86,13 @@ public class AgentManager {
      * @return O agente encontrado, ou null se não encontrado
      */
     public Agent getAgent(String name) {
-        for (Agent agent : agents) {
-            if (agent.getName().equals(name)) {
-                return agent;
-            }
-        }
-        return null;
+        return name == null ? null : agentsByName.get(name);
     }
 
     /**
      * Retorna todos os agentes na rede.
      *
-     * @return Lista contendo todos os agentes na rede
+     * @return Lista imutável com os agentes na rede no momento da chamada
      */
     public List<Agent> getAllAgents() {
         return agents;
@@ -57,10 +104,20 @@ public class AgentManager {
      * @param name Nome do agente a ser deletado
      */
     public void deleteAgent(String name) {
-        Agent agent = getAgent(name);
-        if (agent != null) {
+        synchronized (lock) {
+            Agent agent = getAgent(name);
+            if (agent == null) {
+                return;
+            }
             agent.stopHost();  // Para o servidor do agente
-            agents.remove(agent);  // Remove o agente da lista
+            agentsByName.remove(name);
+            List<Agent> copy = new ArrayList<>(agents);
+            copy.remove(agent);
+            agents = List.copyOf(copy);
+            // Os demais agentes deixam de sortear o agente removido na propagação de blocos
+            for (Agent other : copy) {
+                other.forgetPeer(agent.getPort());
+            }
         }
     }
 
@@ -69,10 +126,110 @@ public class AgentManager {
      * Este método para todos os servidores antes de remover os agentes da lista.
      */
     public void deleteAllAgents() {
-        for (Agent agent : agents) {
-            agent.stopHost();  // Para o servidor do agente
+        synchronized (lock) {
+            for (Agent agent : agents) {
+                agent.stopHost();  // Para o servidor do agente
+            }
+            agentsByName.clear();
+            agents = List.of();
+        }
+    }
+
+    /**
+     * Submete uma transação ao mempool de um agente específico na rede.
+     *
+     * @param name Nome do agente que receberá a transação
+     * @param transaction A transação submetida
+     * @return O resultado da submissão, ou null se o agente não foi encontrado
+     */
+    public String submitTransaction(String name, Transaction transaction) {
+        Agent agent = getAgent(name);
+        if (agent != null) {
+            return agent.submitTransaction(transaction).name();
+        }
+        return null;
+    }
+
+    /**
+     * Retorna a prova de inclusão de uma transação em um bloco da blockchain de um agente.
+     *
+     * @param name Nome do agente consultado
+     * @param height Altura do bloco
+     * @param transactionHash Hash da transação
+     * @return A prova, ou null se o agente, o bloco ou a transação não forem encontrados
+     */
+    public MerkleProof getProof(String name, int height, String transactionHash) {
+        Agent agent = getAgent(name);
+        if (agent != null) {
+            return agent.getProof(height, transactionHash);
+        }
+        return null;
+    }
+
+    /**
+     * Retorna uma página de blocos consecutivos do ramo principal de um agente.
+     * Copia apenas os blocos da página, nunca a blockchain inteira.
+     *
+     * @param name Nome do agente consultado
+     * @param from Altura do primeiro bloco
+     * @param count Quantidade de blocos, limitada a BlockPage.MAX_COUNT
+     * @return A página, ou null se o agente não foi encontrado
+     */
+    public BlockPage getBlocks(String name, int from, int count) {
+        Agent agent = getAgent(name);
+        if (agent == null) {
+            return null;
+        }
+        return page(agent, from, count);
+    }
+
+    /**
+     * Retorna a página com os blocos mais recentes do ramo principal de um agente, até a ponta.
+     *
+     * @param name Nome do agente consultado
+     * @param count Quantidade de blocos, limitada a BlockPage.MAX_COUNT
+     * @return A página, ou null se o agente não foi encontrado
+     */
+    public BlockPage getLatestBlocks(String name, int count) {
+        Agent agent = getAgent(name);
+        if (agent == null) {
+            return null;
+        }
+        int limit = Math.min(count, BlockPage.MAX_COUNT);
+        return page(agent, Math.max(0, height(agent) - limit + 1), limit);
+    }
+
+    /**
+     * Retorna um bloco do ramo principal de um agente pelo hash.
+     *
+     * @param name Nome do agente consultado
+     * @param hash Hash do bloco
+     * @return O bloco, ou null se o agente ou o bloco não forem encontrados
+     */
+    public Block getBlock(String name, String hash) {
+        Agent agent = getAgent(name);
+        if (agent != null) {
+            return agent.getBlock(hash);
         }
-        agents.clear();  // Limpa a lista de agentes
+        return null;
+    }
+
+    /**
+     * Assina os eventos da blockchain (novos blocos, reorganizações e mudanças de ponta) de um agente.
+     * A fila da assinatura tem AgentConfig.eventBufferSize() eventos; se encher, a assinatura é fechada.
+     *
+     * @param name Nome do agente, ou null para os eventos de todos os agentes
+     * @return A assinatura, que deve ser fechada quando o assinante sair
+     */
+    public ChainEvents.Subscription subscribe(String name) {
+        return chainEvents.subscribe(name, AgentConfig.eventBufferSize());
+    }
+
+    /**
+     * Retorna o distribuidor dos eventos da blockchain dos agentes.
+     */
+    public ChainEvents getChainEvents() {
+        return chainEvents;
     }
 
     /**
@@ -88,4 +245,14 @@ public class AgentManager {
         }
         return null;
     }
+
+    private static BlockPage page(Agent agent, int from, int count) {
+        int height = height(agent);
+        return new BlockPage(height, from, agent.getBlocks(from, Math.min(count, BlockPage.MAX_COUNT)));
+    }
+
+    private static int height(Agent agent) {
+        Block tip = agent.getLatestBlock();
+        return tip == null ? -1 : tip.getIndex();
+    }
 }
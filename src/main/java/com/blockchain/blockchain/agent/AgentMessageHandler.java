@@ -0,0 +1,124 @@
+package com.blockchain.blockchain.agent;/*
+ * Classe responsável por tratar as mensagens recebidas de outros agentes na blockchain.
+ * Recebe as mensagens entregues pelo PeerTransport, processa-as e responde pela mesma conexão
+ * conforme o tipo de mensagem recebida.
+ */
+
+import static com.blockchain.blockchain.agent.Message.MESSAGE_TYPE.*;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+
+public class AgentMessageHandler implements PeerTransport.Handler {
+
+    private static final Logger logger = LoggerFactory.getLogger(AgentMessageHandler.class);
+    private final Agent agent; // Agente associado a este tratador
+
+    /*
+     * Construtor da classe AgentMessageHandler.
+     * Inicializa o tratador com o agente que recebe as mensagens.
+     */
+    AgentMessageHandler(final Agent agent) {
+        this.agent = agent;
+    }
+
+    /*
+     * Método principal do tratador, chamado para cada mensagem recebida em uma conexão.
+     * Aplica as condições da rede do agente: a mensagem pode ser descartada ou tratada mais tarde.
+     */
+    @Override
+    public void onMessage(PeerTransport.Connection connection, Message msg) {
+        long delay = agent.getNetworkConditions().delay(msg.sender, agent.getPort());
+        if (delay < 0) {
+            return; // Perdida ou bloqueada por uma partição simulada
+        }
+        if (delay > 0) {
+            agent.deliverLater(() -> handle(connection, msg), delay);
+            return;
+        }
+        handle(connection, msg);
+    }
+
+    private void handle(PeerTransport.Connection connection, Message msg) {
+        logger.debug("{} received: {}", agent.getPort(), msg);
+        if (!agent.learnPeer(msg.sender)) {
+            return; // Enviada por um par que já saiu da rede
+        }
+        agent.getMetrics().received(msg.type);
+
+        try {
+            // Processa a mensagem com base no tipo recebido
+            if (INFO_NEW_BLOCK == msg.type) {
+                // Verifica se a mensagem contém exatamente um bloco e adiciona ao agente; sem a lista, é malformada
+                if (msg.blocks == null || msg.blocks.size() != 1) {
+                    logger.warn("{} received an invalid block message from {}: {} blocks", agent.getPort(), msg.sender,
+                            msg.blocks == null ? "no" : msg.blocks.size());
+                    agent.getMetrics().rejected(AgentMetrics.Rejection.MALFORMED);
+                    return;
+                }
+                Block block = msg.blocks.get(0);
+                if (!agent.onNewBlock(block, msg.sender)) {
+                    return; // Cópia de um bloco já visto, recebida por outro caminho da fofoca
+                }
+                // Um bloco além da ponta seguinte indica que este agente ficou para trás
+                if (block.getIndex() > agent.getLatestBlock().getIndex()) {
+                    agent.getSync().onTip(msg.sender, block.getIndex(), block.getHash());
+                }
+            } else if (INFO_TIP == msg.type) {
+                // Registra a ponta do par e responde com a própria ponta se estiver à frente dele
+                if (agent.getSync().onTip(msg.sender, msg.height, msg.hash)) {
+                    reply(connection, agent.getSync().tipMessage());
+                }
+            } else if (REQ_HEADERS == msg.type) {
+                reply(connection, new Message.MessageBuilder()
+                        .withSender(agent.getPort())
+                        .withReceiver(msg.sender)
+                        .withType(RSP_HEADERS)
+                        .withHeight(msg.height)
+                        .withBlocks(agent.getSync().headers(msg.height, msg.count))
+                        .build());
+            } else if (RSP_HEADERS == msg.type) {
+                agent.getSync().onHeaders(msg.sender, msg.height, msg.blocks);
+            } else if (REQ_BLOCKS == msg.type) {
+                reply(connection, new Message.MessageBuilder()
+                        .withSender(agent.getPort())
+                        .withReceiver(msg.sender)
+                        .withType(RSP_BLOCKS)
+                        .withHeight(msg.height)
+                        .withBlocks(agent.getSync().blocks(msg.height, msg.count))
+                        .build());
+            } else if (RSP_BLOCKS == msg.type) {
+                agent.getSync().onBlocks(msg.sender, msg.height, msg.blocks);
+            } else if (REQ_ALL_BLOCKS == msg.type) {
+                // Mantido para agentes antigos, que ainda pedem a blockchain completa
+                // Envia todos os blocos do agente em resposta à solicitação, pela mesma conexão
+                reply(connection, new Message.MessageBuilder()
+                        .withSender(agent.getPort())
+                        .withReceiver(msg.sender)
+                        .withType(RSP_ALL_BLOCKS)
+                        .withBlocks(agent.getBlocks())
+                        .build());
+            } else if (RSP_ALL_BLOCKS == msg.type) {
+                // Recebe a blockchain completa de um par; uma resposta sem a lista de blocos é malformada
+                if (msg.blocks == null) {
+                    logger.warn("{} received a chain message without blocks from {}", agent.getPort(), msg.sender);
+                    agent.getMetrics().rejected(AgentMetrics.Rejection.MALFORMED);
+                    return;
+                }
+                agent.addBlocks(msg.blocks);
+            }
+        } catch (IOException e) {
+            logger.warn("{} não conseguiu responder a {}", agent.getPort(), msg.sender, e); // Trata exceções de escrita da resposta
+        }
+    }
+
+    /*
+     * Responde pela mesma conexão em que a mensagem foi recebida.
+     */
+    private void reply(PeerTransport.Connection connection, Message message) throws IOException {
+        connection.send(message);
+        agent.getMetrics().sent(message.type);
+    }
+}
@@ -0,0 +1,197 @@
+package com.blockchain.blockchain.agent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Classe que publica as métricas de um agente no Micrometer, expostas pelo Actuator
+ * (/actuator/metrics e /actuator/prometheus).
+ *
+ * Os contadores que já existem (mineração, filas de envio e fofoca) são lidos na hora da coleta,
+ * sem custo no caminho das mensagens. As demais métricas são contadores e timers próprios:
+ * tempo para minerar cada bloco, blocos aceitos e rejeitados por motivo, mensagens enviadas
+ * e recebidas por tipo e o tempo de envio dos quadros a cada par.
+ * Todas as métricas têm a tag agent com o nome do agente.
+ */
+final class AgentMetrics implements TransportStats.SendListener {
+
+    /*
+     * Motivos pelos quais um bloco é rejeitado.
+     */
+    enum Rejection {
+        MALFORMED, // Bloco nulo ou com índice negativo, ou mensagem sem a lista de blocos
+        MISSING_HASH, // Hash ou hash anterior não informado
+        INVALID_PROOF, // Prova de trabalho ou raiz de Merkle inválida
+        INVALID_CHAIN, // Sequência recebida de um par com um bloco inválido
+        UNKNOWN_PARENT, // Bloco anterior desconhecido
+        INVALID_LINK, // Índice ou dificuldade incompatível com o bloco anterior
+        INVALID_TIMESTAMP // Timestamp anterior ao do bloco anterior ou adiantado demais em relação ao relógio local
+    }
+
+    // Faixas do histograma de tempo de envio; poucas, pois há um timer por par
+    private static final Duration[] SEND_LATENCY_BUCKETS = {
+            Duration.ofMillis(1), Duration.ofMillis(5), Duration.ofMillis(10), Duration.ofMillis(50),
+            Duration.ofMillis(100), Duration.ofMillis(500), Duration.ofSeconds(1), Duration.ofSeconds(5)
+    };
+
+    private final MeterRegistry registry;
+    private final TransportStats transport;
+    private final Tags tags; // Tags comuns a todas as métricas do agente
+    private final List<Meter> meters = new CopyOnWriteArrayList<>(); // Métricas registradas, removidas em close()
+    private final Timer miningTime;
+    private final Map<BlockTree.Status, Counter> accepted = new EnumMap<>(BlockTree.Status.class);
+    private final Map<Rejection, Counter> rejected = new EnumMap<>(Rejection.class);
+    private final Map<Message.MESSAGE_TYPE, Counter> sent = new EnumMap<>(Message.MESSAGE_TYPE.class);
+    private final Map<Message.MESSAGE_TYPE, Counter> received = new EnumMap<>(Message.MESSAGE_TYPE.class);
+    private final Map<String, Timer> sendLatency = new ConcurrentHashMap<>(); // Tempo de envio por par, criado no primeiro quadro
+
+    AgentMetrics(MeterRegistry registry, Agent agent) {
+        this.registry = registry;
+        this.tags = Tags.of("agent", String.valueOf(agent.getName()));
+
+        MiningStats mining = agent.getMiningStats();
+        register(FunctionCounter.builder("blockchain.mining.hashes", mining, MiningStats::getHashesComputed)
+                .description("Hashes calculados; a taxa deste contador é a taxa de hash do agente")
+                .baseUnit("hashes").tags(tags).register(registry));
+        register(FunctionCounter.builder("blockchain.mining.jobs", mining, MiningStats::getJobsMined)
+                .description("Trabalhos de mineração encerrados").tags(tags).tag("result", "mined").register(registry));
+        register(FunctionCounter.builder("blockchain.mining.jobs", mining, MiningStats::getJobsCancelled)
+                .description("Trabalhos de mineração encerrados").tags(tags).tag("result", "cancelled").register(registry));
+        miningTime = register(Timer.builder("blockchain.mining.time")
+                .description("Tempo para minerar um bloco")
+                .tags(tags)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofMinutes(10))
+                .register(registry));
+
+        for (BlockTree.Status status : List.of(BlockTree.Status.EXTENDED, BlockTree.Status.REORGANIZED,
+                BlockTree.Status.SIDE_BRANCH, BlockTree.Status.DUPLICATE)) {
+            accepted.put(status, register(Counter.builder("blockchain.blocks.accepted")
+                    .description("Blocos aceitos, pelo que aconteceu com eles na árvore de blocos")
+                    .tags(tags).tag("status", tagValue(status)).register(registry)));
+        }
+        for (Rejection reason : Rejection.values()) {
+            rejected.put(reason, register(Counter.builder("blockchain.blocks.rejected")
+                    .description("Blocos rejeitados, por motivo")
+                    .tags(tags).tag("reason", tagValue(reason)).register(registry)));
+        }
+        for (Message.MESSAGE_TYPE type : Message.MESSAGE_TYPE.values()) {
+            sent.put(type, register(Counter.builder("blockchain.messages.sent")
+                    .description("Mensagens enfileiradas para os pares, por tipo")
+                    .tags(tags).tag("type", type.name()).register(registry)));
+            received.put(type, register(Counter.builder("blockchain.messages.received")
+                    .description("Mensagens recebidas dos pares, por tipo")
+                    .tags(tags).tag("type", type.name()).register(registry)));
+        }
+
+        transport = agent.getTransportStats();
+        register(FunctionCounter.builder("blockchain.net.bytes", transport, TransportStats::getBytesSent)
+                .description("Bytes trafegados com os pares").baseUnit("bytes")
+                .tags(tags).tag("direction", "sent").register(registry));
+        register(FunctionCounter.builder("blockchain.net.bytes", transport, TransportStats::getBytesReceived)
+                .description("Bytes trafegados com os pares").baseUnit("bytes")
+                .tags(tags).tag("direction", "received").register(registry));
+        register(FunctionCounter.builder("blockchain.net.frames", transport, TransportStats::getFramesCoalesced)
+                .description("Quadros que não chegaram a ser enviados")
+                .tags(tags).tag("result", "coalesced").register(registry));
+        register(FunctionCounter.builder("blockchain.net.frames", transport, TransportStats::getFramesDropped)
+                .description("Quadros que não chegaram a ser enviados")
+                .tags(tags).tag("result", "dropped").register(registry));
+        register(FunctionCounter.builder("blockchain.net.connect.failures", transport, TransportStats::getConnectFailures)
+                .description("Falhas ao conectar a um par").tags(tags).register(registry));
+        register(Gauge.builder("blockchain.net.queue.depth", transport, TransportStats::getQueueDepth)
+                .description("Quadros aguardando envio, somando todos os pares").tags(tags).register(registry));
+        transport.setSendListener(this);
+
+        register(FunctionCounter.builder("blockchain.gossip.duplicates", agent.getGossipStats(), GossipStats::getDuplicatesSuppressed)
+                .description("Cópias de blocos já vistos descartadas sem validação").tags(tags).register(registry));
+
+        register(Gauge.builder("blockchain.chain.height", agent, AgentMetrics::height)
+                .description("Altura da ponta da blockchain").tags(tags).register(registry));
+        register(Gauge.builder("blockchain.sync.lag", agent, a -> a.getSync().lag())
+                .description("Blocos entre a ponta local e a ponta mais alta anunciada pelos pares")
+                .baseUnit("blocks").tags(tags).register(registry));
+    }
+
+    /*
+     * Registra o tempo de mineração de um bloco encontrado.
+     */
+    void mined(long nanos) {
+        miningTime.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /*
+     * Registra um bloco incluído na árvore de blocos; ORPHAN, INVALID e INVALID_TIMESTAMP contam como rejeições.
+     */
+    void block(BlockTree.Status status) {
+        switch (status) {
+            case ORPHAN -> rejected(Rejection.UNKNOWN_PARENT);
+            case INVALID -> rejected(Rejection.INVALID_LINK);
+            case INVALID_TIMESTAMP -> rejected(Rejection.INVALID_TIMESTAMP);
+            default -> accepted.get(status).increment();
+        }
+    }
+
+    void rejected(Rejection reason) {
+        rejected.get(reason).increment();
+    }
+
+    void sent(Message.MESSAGE_TYPE type) {
+        sent.get(type).increment();
+    }
+
+    void received(Message.MESSAGE_TYPE type) {
+        if (type != null) {
+            received.get(type).increment();
+        }
+    }
+
+    @Override
+    public void onSent(String peer, long nanos) {
+        sendLatency.computeIfAbsent(peer, p -> register(Timer.builder("blockchain.net.send.latency")
+                        .description("Tempo entre o quadro entrar na fila de um par e terminar de ser escrito")
+                        .tags(tags).tag("peer", p)
+                        .serviceLevelObjectives(SEND_LATENCY_BUCKETS)
+                        .register(registry)))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /*
+     * Remove as métricas do agente do registro, quando o agente é parado.
+     */
+    void close() {
+        transport.setSendListener(null);
+        meters.forEach(registry::remove);
+        meters.clear();
+        sendLatency.clear();
+    }
+
+    private <M extends Meter> M register(M meter) {
+        meters.add(meter);
+        return meter;
+    }
+
+    private static double height(Agent agent) {
+        Block tip = agent.getLatestBlock();
+        return tip == null ? 0 : tip.getIndex();
+    }
+
+    private static String tagValue(Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,55 +1,111 @@
 package com.blockchain.blockchain.agent;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
-import java.text.SimpleDateFormat;
 import java.util.Map;
+import java.util.Objects;
 /*
  * Classe que representa um bloco na blockchain.
  * Armazena informações como índice, timestamp, hash, hash do bloco anterior, criador e nonce.
+ * Os hashes ficam em 32 bytes (Hash32); o texto hexadecimal é gerado apenas nos getters (JSON, REST).
  */
 public class Block implements Serializable {
 
+    private static final Logger logger = LoggerFactory.getLogger(Block.class);
+
     private static final long serialVersionUID = 1L; // Número de versão da classe
 
+    // Forma serializada do bloco, a mesma de quando os hashes eram guardados como texto
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("index", int.class),
+            new ObjectStreamField("timestamp", Long.class),
+            new ObjectStreamField("hash", String.class),
+            new ObjectStreamField("previousHash", String.class),
+            new ObjectStreamField("creator", String.class),
+            new ObjectStreamField("nonce", Integer.class),
+            new ObjectStreamField("difficulty", int.class),
+            new ObjectStreamField("data", String.class),
+            new ObjectStreamField("merkleRoot", String.class),
+    };
+
     protected int index; // Índice do bloco na blockchain
     protected Long timestamp; // Timestamp do bloco (data e hora de criação)
-    protected String hash; // Hash do bloco (identificador único gerado a partir dos dados do bloco)
-    protected String previousHash; // Hash do bloco anterior
+    protected Hash32 hash; // Hash do bloco (identificador único gerado a partir dos dados do bloco)
+    protected Hash32 previousHash; // Hash do bloco anterior
     protected String creator; // Identificação do criador do bloco
     protected Integer nonce; // Número usado em mineração para encontrar um hash válido
+    protected int difficulty; // Dificuldade exigida do hash: quantidade de bits zero iniciais
     protected String data; // Dados armazenados no bloco
+    protected String merkleRoot; // Raiz de Merkle das entradas de data, minerada no cabeçalho no lugar dos dados
 
-    private ProofOfWork proofOfWork; // Objeto responsável pela mineração do bloco
+    private transient ProofOfWork proofOfWork; // Objeto responsável pela mineração do bloco
 
     /*
      * Construtor da classe Block.
-     * Inicializa os atributos do bloco e calcula seu hash.
+     * Inicializa os atributos do bloco e calcula seu hash, minerando-o sem dificuldade.
      */
     public Block(int index, String previousHash, String creator) {
+        this(index, previousHash, creator, 0);
+    }
+
+    /*
+     * Inicializa os atributos do bloco e o minera com a dificuldade informada.
+     */
+    public Block(int index, String previousHash, String creator, int difficulty) {
+        init(index, previousHash, creator);
+        this.difficulty = difficulty;
+
+        // Inicia o processo de mineração para encontrar um hash válido
+        mine(new ProofOfWork(this));
+    }
+
+    /*
+     * Cria um bloco com os atributos iniciais, mas ainda sem minerar.
+     * Usado pelos trabalhos de mineração que podem ser cancelados (MiningJob).
+     */
+    static Block unmined(int index, String previousHash, String creator, int difficulty) {
+        Block block = new Block();
+        block.init(index, previousHash, creator);
+        block.difficulty = difficulty;
+        return block;
+    }
+
+    private void init(int index, String previousHash, String creator) {
         this.index = index;
-        this.previousHash = previousHash;
+        this.previousHash = Hash32.of(previousHash);
         this.creator = creator;
         this.timestamp = System.currentTimeMillis();
-        this.hash = calculateHash(); // Calcula o hash inicial do bloco
+        this.hash = Hash32.of(calculateHash()); // Calcula o hash inicial do bloco
+    }
 
-        // Inicia o processo de mineração para encontrar um hash válido
-        proofOfWork = new ProofOfWork(this);
+    /*
+     * Minera o bloco com a prova de trabalho informada.
+     * Retorna false se a mineração foi cancelada antes de encontrar um nonce válido.
+     */
+    boolean mine(ProofOfWork proofOfWork) {
+        this.proofOfWork = proofOfWork;
         Map<String, String> minedBlockData = proofOfWork.run();
 
-        if (minedBlockData != null) {
-            this.nonce = Integer.parseInt(minedBlockData.get("nonce"));
-            this.hash = minedBlockData.get("hash");
-
-            // Exibe informações sobre o bloco minerado
-            SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-            System.out.println("Block mined: " + dateFormat.format(timestamp) + " " + creator + " " + hash);
-            System.out.println("Index: " + index);
-            System.out.println("Nonce: " + nonce);
-            System.out.println("Timestamp: " + timestamp);
-            System.out.println("Data: " + data);
-            System.out.println("Previous hash: " + previousHash);
-            System.out.println("Hash: " + hash);
+        if (minedBlockData == null) {
+            return false;
         }
+
+        this.nonce = Integer.parseInt(minedBlockData.get("nonce"));
+        this.hash = Hash32.of(minedBlockData.get("hash"));
+
+        // Registra o bloco minerado; a verificação evita montar os parâmetros com o nível debug desligado
+        if (logger.isDebugEnabled()) {
+            logger.debug("Block mined: index={} nonce={} difficulty={} timestamp={} creator={} previousHash={} hash={}",
+                    index, nonce, difficulty, timestamp, creator, previousHash, hash);
+        }
+        return true;
     }
 
     public Block() {
@@ -60,7 +116,27 @@ public class Block implements Serializable {
      * É utilizado internamente na inicialização do bloco e após a mineração.
      */
     private String calculateHash() {
-        return Utils.hash256(index + previousHash + timestamp);
+        return Utils.hash256(index + String.valueOf(previousHash) + timestamp);
+    }
+
+    /*
+     * Retorna o cabeçalho do bloco: uma cópia com todos os atributos, exceto os dados.
+     * Usado na sincronização, que baixa e confere os cabeçalhos antes dos blocos completos.
+     */
+    Block toHeader() {
+        if (data == null) {
+            return this;
+        }
+        Block header = new Block();
+        header.index = index;
+        header.timestamp = timestamp;
+        header.hash = hash;
+        header.previousHash = previousHash;
+        header.creator = creator;
+        header.nonce = nonce;
+        header.difficulty = difficulty;
+        header.merkleRoot = merkleRoot;
+        return header;
     }
 
     // Getters e Setters para os atributos da classe Block
@@ -81,22 +157,61 @@ public class Block implements Serializable {
         this.timestamp = timestamp;
     }
 
+    /*
+     * Hash do bloco em hexadecimal, gerado a cada chamada, ou null se o bloco não tem hash.
+     */
     public String getHash() {
-        return hash;
+        return hash == null ? null : hash.toString();
     }
 
+    /*
+     * Define o hash do bloco a partir do texto hexadecimal.
+     * Lança IllegalArgumentException se o valor não for um hash SHA-256 em hexadecimal minúsculo.
+     */
     public void setHash(String hash) {
-        this.hash = hash;
+        this.hash = Hash32.of(hash);
     }
 
     public String getPreviousHash() {
-        return previousHash;
+        return previousHash == null ? null : previousHash.toString();
     }
 
     public void setPreviousHash(String previousHash) {
+        this.previousHash = Hash32.of(previousHash);
+    }
+
+    /*
+     * Hash do bloco (Hash32), usado como chave nos índices, ou null se o bloco não tem hash.
+     */
+    Hash32 hashKey() {
+        return hash;
+    }
+
+    void setHashKey(Hash32 hash) {
+        this.hash = hash;
+    }
+
+    /*
+     * Hash do bloco anterior (Hash32), ou null se não foi informado.
+     */
+    Hash32 previousHashKey() {
+        return previousHash;
+    }
+
+    void setPreviousHashKey(Hash32 previousHash) {
         this.previousHash = previousHash;
     }
 
+    /*
+     * Passa a referenciar o hash do bloco anterior já em memória, em vez de uma cópia igual
+     * (por exemplo, decodificada de uma mensagem), o que economiza um Hash32 por bloco.
+     */
+    void linkTo(Block previous) {
+        if (previous.hash.equals(previousHash)) {
+            this.previousHash = previous.hash;
+        }
+    }
+
     public String getCreator() {
         return creator;
     }
@@ -113,6 +228,14 @@ public class Block implements Serializable {
         this.nonce = nonce;
     }
 
+    public int getDifficulty() {
+        return difficulty;
+    }
+
+    public void setDifficulty(int difficulty) {
+        this.difficulty = difficulty;
+    }
+
     public String getData() {
         return data;
     }
@@ -121,10 +244,55 @@ public class Block implements Serializable {
         this.data = data;
     }
 
+    public String getMerkleRoot() {
+        return merkleRoot;
+    }
+
+    public void setMerkleRoot(String merkleRoot) {
+        this.merkleRoot = merkleRoot;
+    }
+
     public static long getSerialVersionUID() {
         return serialVersionUID;
     }
 
+    /*
+     * Grava o bloco com os hashes em hexadecimal, compatível com agentes que guardam os hashes como texto.
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("index", index);
+        fields.put("timestamp", timestamp);
+        fields.put("hash", getHash());
+        fields.put("previousHash", getPreviousHash());
+        fields.put("creator", creator);
+        fields.put("nonce", nonce);
+        fields.put("difficulty", difficulty);
+        fields.put("data", data);
+        fields.put("merkleRoot", merkleRoot);
+        out.writeFields();
+    }
+
+    /*
+     * Lê o bloco gravado por writeObject; um hash que não está em hexadecimal torna o bloco ilegível.
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        index = fields.get("index", 0);
+        timestamp = (Long) fields.get("timestamp", null);
+        creator = (String) fields.get("creator", null);
+        nonce = (Integer) fields.get("nonce", null);
+        difficulty = fields.get("difficulty", 0);
+        data = (String) fields.get("data", null);
+        merkleRoot = (String) fields.get("merkleRoot", null);
+        try {
+            hash = Hash32.of((String) fields.get("hash", null));
+            previousHash = Hash32.of((String) fields.get("previousHash", null));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidObjectException(e.getMessage());
+        }
+    }
+
     @Override
     public String toString() {
         return "Block{" +
@@ -142,19 +310,17 @@ public class Block implements Serializable {
         Block block = (Block) o;
 
         return index == block.index &&
-                timestamp.equals(block.timestamp) &&
-                hash.equals(block.hash) &&
-                previousHash.equals(block.previousHash) &&
-                creator.equals(block.creator);
+                Objects.equals(hash, block.hash) &&
+                Objects.equals(previousHash, block.previousHash) &&
+                Objects.equals(timestamp, block.timestamp) &&
+                Objects.equals(creator, block.creator);
     }
 
+    /*
+     * Usa o hashCode do hash, calculado uma única vez; blocos iguais têm o mesmo hash.
+     */
     @Override
     public int hashCode() {
-        int result = index;
-        result = 31 * result + timestamp.hashCode();
-        result = 31 * result + hash.hashCode();
-        result = 31 * result + previousHash.hashCode();
-        result = 31 * result + creator.hashCode();
-        return result;
+        return hash == null ? 0 : hash.hashCode();
     }
 }
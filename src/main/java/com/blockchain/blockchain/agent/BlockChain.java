@@ -1,17 +1,47 @@
 package com.blockchain.blockchain.agent;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
-import java.util.LinkedList;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
 
 /*
  * Classe que representa uma blockchain, que é uma lista encadeada de blocos.
- * Implementa Serializable para permitir a serialização dos objetos.
+ * Os blocos ficam em um índice por altura (array) e em um mapa de hash para posição,
+ * o que torna as buscas por altura, por hash e pela ponta O(1).
+ *
+ * As leituras não usam bloqueio nem copiam blocos: a blockchain é publicada como uma versão imutável
+ * (Snapshot), trocada a cada alteração em um único campo volatile. Os blocos ficam em pedaços de CHUNK
+ * posições compartilhados entre as versões; uma inserção só escreve em posições que nenhuma versão
+ * publicada enxerga, e um truncamento troca o pedaço parcial por uma cópia. Assim, quem lê percorre
+ * sempre uma versão coerente, mesmo durante inserções e reorganizações. As alterações continuam
+ * serializadas pelo bloqueio.
+ * Implementa Serializable para permitir a serialização dos objetos: apenas a lista de blocos é gravada,
+ * e a versão publicada, o índice por hash e o bloqueio são recriados na leitura.
  */
 public class BlockChain implements Serializable {
 
-    private List<Block> blocks = new LinkedList<>(); // Lista de blocos da blockchain
-    private Object lock = new Object(); // Objeto de bloqueio para operações sincronizadas
+    private static final Logger logger = LoggerFactory.getLogger(BlockChain.class);
+
+    private static final long serialVersionUID = 1L; // Número de versão da classe
+
+    private static final int CHUNK_BITS = 10;
+    private static final int CHUNK = 1 << CHUNK_BITS; // Blocos por pedaço
+
+    private transient volatile Snapshot blocks = Snapshot.EMPTY; // Versão publicada da blockchain
+    private transient Map<Hash32, Integer> positions = new ConcurrentHashMap<>(); // Índice de posições pela chave do hash
+    private transient Object lock = new Object(); // Objeto de bloqueio para as alterações
+    private transient BlockLog log; // Registro em disco, quando a persistência está habilitada
 
     /*
      * Construtor da classe BlockChain.
@@ -21,37 +51,139 @@ public class BlockChain implements Serializable {
         add(root); // Adiciona o bloco raiz à blockchain
     }
 
+    /*
+     * Construtor que carrega a blockchain a partir do registro em disco.
+     * Se o registro estiver vazio ou pertencer a outro bloco raiz (outro hash ou outra dificuldade inicial),
+     * recomeça a partir do bloco raiz.
+     */
+    BlockChain(Block root, BlockLog log) throws IOException {
+        List<Block> stored = log.readAll();
+        if (!stored.isEmpty() && root.hashKey().equals(stored.get(0).hashKey())
+                && root.getDifficulty() == stored.get(0).getDifficulty()) {
+            for (Block block : stored) {
+                append(block);
+            }
+            this.log = log;
+        } else {
+            log.truncate(0);
+            this.log = log;
+            add(root);
+        }
+    }
+
     /*
      * Método para adicionar um bloco à blockchain de forma segura.
      * Utiliza sincronização para garantir operações atômicas.
      */
     public void add(Block block) {
         synchronized (lock) {
-            blocks.add(block);
+            append(block);
+            persist(block);
         }
     }
 
     /*
      * Método para adicionar uma lista de blocos à blockchain, evitando duplicatas.
+     * A verificação de duplicatas usa o índice por hash, em tempo constante por bloco.
      * Utiliza sincronização para garantir operações atômicas.
      */
     public void add(List<Block> blockList) {
         synchronized (lock) {
             for (Block block : blockList) {
-                boolean found = false;
-                for (Block old : blocks) {
-                    if (old.getHash().equals(block.getHash())) {
-                        found = true;
-                        break;
-                    }
+                if (!positions.containsKey(block.hashKey())) { // Sob o bloqueio, o índice corresponde à versão atual
+                    append(block);
+                    persist(block);
                 }
-                if (!found) {
-                    blocks.add(block);
+            }
+        }
+    }
+
+    /*
+     * Escreve o bloco na primeira posição livre e publica a versão seguinte.
+     * A posição está além do tamanho de todas as versões já publicadas, então nenhum leitor a enxerga antes da publicação.
+     */
+    private void append(Block block) {
+        Snapshot current = blocks;
+        int size = current.size;
+        Block[][] chunks = current.chunks;
+        int chunk = size >>> CHUNK_BITS;
+        if (chunk == chunks.length) {
+            chunks = Arrays.copyOf(chunks, Math.max(1, chunks.length * 2));
+        }
+        if (chunks[chunk] == null) {
+            chunks[chunk] = new Block[CHUNK];
+        }
+        chunks[chunk][size & (CHUNK - 1)] = block;
+        positions.put(block.hashKey(), size);
+        blocks = new Snapshot(chunks, 0, size + 1);
+    }
+
+    /*
+     * Grava o bloco no registro em disco, se houver.
+     * Uma falha de gravação não impede o bloco de ficar na blockchain em memória.
+     */
+    private void persist(Block block) {
+        if (log == null) {
+            return;
+        }
+        try {
+            log.append(block);
+        } catch (IOException e) {
+            logger.error("Não foi possível gravar o bloco {} em disco: {}", block.getIndex(), e.getMessage());
+        }
+    }
+
+    /*
+     * Remove os blocos a partir da altura informada, mantendo apenas os anteriores.
+     * Usado na reorganização, quando um ramo lateral passa a ser o ramo principal.
+     */
+    public void truncate(int size) {
+        synchronized (lock) {
+            Snapshot current = blocks;
+            if (size < 1 || size >= current.size) {
+                return; // O bloco raiz nunca é removido
+            }
+            for (int position = size; position < current.size; position++) {
+                positions.remove(current.get(position).hashKey(), position);
+            }
+            // As versões já publicadas continuam com os pedaços antigos; o pedaço parcial é copiado
+            // para que as próximas inserções não escrevam em posições que elas enxergam
+            Block[][] chunks = Arrays.copyOf(current.chunks, current.chunks.length);
+            int chunk = size >>> CHUNK_BITS;
+            int offset = size & (CHUNK - 1);
+            chunks[chunk] = offset == 0 ? null : Arrays.copyOf(chunks[chunk], CHUNK);
+            if (offset != 0) {
+                Arrays.fill(chunks[chunk], offset, CHUNK, null);
+            }
+            Arrays.fill(chunks, chunk + 1, chunks.length, null);
+            blocks = new Snapshot(chunks, 0, size);
+            if (log != null) {
+                try {
+                    log.truncate(size);
+                } catch (IOException e) {
+                    logger.error("Não foi possível truncar a blockchain em disco na altura {}: {}", size, e.getMessage());
                 }
             }
         }
     }
 
+    /*
+     * Fecha o registro em disco, sincronizando os blocos pendentes.
+     */
+    public void close() {
+        synchronized (lock) {
+            if (log == null) {
+                return;
+            }
+            try {
+                log.close();
+            } catch (IOException e) {
+                logger.error("Não foi possível fechar a blockchain em disco", e);
+            }
+            log = null;
+        }
+    }
+
     /*
      * Verifica se a blockchain está vazia.
      */
@@ -63,28 +195,94 @@ public class BlockChain implements Serializable {
      * Obtém o último bloco adicionado à blockchain.
      */
     public Block getLatestBlock() {
-        return blocks.get(blocks.size() - 1);
+        return blocks.last;
+    }
+
+    /*
+     * Obtém o bloco na posição (altura) informada, ou null se não existir.
+     */
+    public Block getBlock(int height) {
+        Snapshot snapshot = blocks;
+        return height >= 0 && height < snapshot.size ? snapshot.get(height) : null;
+    }
+
+    /*
+     * Obtém até count blocos a partir da altura informada, sem cópia.
+     */
+    public List<Block> getBlocks(int from, int count) {
+        Snapshot snapshot = blocks;
+        if (from < 0 || from >= snapshot.size || count <= 0) {
+            return List.of();
+        }
+        return snapshot.subList(from, Math.min(snapshot.size, from + count));
+    }
+
+    /*
+     * Obtém o bloco com o hash informado, ou null se não existir ou se o texto não for um hash.
+     */
+    public Block getBlock(String hash) {
+        return getBlock(Hash32.parse(hash));
+    }
+
+    /*
+     * Obtém o bloco com a chave de hash informada, ou null se não existir; não cria objetos.
+     * A posição do índice é conferida na versão publicada, que pode ser anterior à do índice.
+     */
+    Block getBlock(Hash32 hash) {
+        Integer position = hash == null ? null : positions.get(hash);
+        Snapshot snapshot = blocks;
+        if (position == null || position >= snapshot.size) {
+            return null;
+        }
+        Block block = snapshot.get(position);
+        return hash.equals(block.hashKey()) ? block : null;
+    }
+
+    /*
+     * Verifica se a blockchain contém um bloco com o hash informado.
+     */
+    public boolean contains(String hash) {
+        return getBlock(hash) != null;
+    }
+
+    boolean contains(Hash32 hash) {
+        return getBlock(hash) != null;
     }
 
     /*
      * Retorna o tamanho atual da blockchain.
      */
     public int size() {
-        return blocks.size();
+        return blocks.size;
     }
 
     /*
-     * Retorna a lista de todos os blocos da blockchain.
+     * Retorna a versão atual da lista de todos os blocos da blockchain, somente para leitura.
+     * A lista não é copiada nem muda depois de retornada, mesmo com inserções concorrentes.
      */
     public List<Block> getBlocks() {
         return blocks;
     }
 
     /*
-     * Define a lista de blocos da blockchain.
+     * Define a lista de blocos da blockchain, reconstruindo os índices e o registro em disco.
      */
     public void setBlocks(List<Block> blocks) {
-        this.blocks = blocks;
+        synchronized (lock) {
+            this.blocks = Snapshot.EMPTY;
+            this.positions.clear();
+            if (log != null) {
+                try {
+                    log.truncate(0);
+                } catch (IOException e) {
+                    logger.error("Não foi possível truncar a blockchain em disco na altura 0: {}", e.getMessage());
+                }
+            }
+            for (Block block : blocks) {
+                append(block);
+                persist(block);
+            }
+        }
     }
 
     /*
@@ -100,4 +298,72 @@ public class BlockChain implements Serializable {
     public void setLock(Object lock) {
         this.lock = lock;
     }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeObject(new ArrayList<>(blocks));
+    }
+
+    /*
+     * Recria a blockchain a partir da lista de blocos gravada, reconstruindo a versão publicada e o índice por hash.
+     */
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        lock = new Object();
+        positions = new ConcurrentHashMap<>();
+        blocks = Snapshot.EMPTY;
+        for (Block block : (List<Block>) in.readObject()) {
+            append(block);
+        }
+    }
+
+    /*
+     * Versão imutável da blockchain (ou de um trecho dela), vista como uma lista somente para leitura.
+     * Na serialização Java, é gravada como uma cópia em ArrayList.
+     */
+    private static final class Snapshot extends AbstractList<Block> implements RandomAccess, Serializable {
+
+        private static final long serialVersionUID = 1L; // Número de versão da classe
+
+        static final Snapshot EMPTY = new Snapshot(new Block[0][], 0, 0);
+
+        private final transient Block[][] chunks; // Pedaços compartilhados com as outras versões
+        private final int from; // Posição do primeiro bloco do trecho
+        private final int size;
+        private final transient Block last; // Último bloco do trecho
+
+        Snapshot(Block[][] chunks, int from, int size) {
+            this.chunks = chunks;
+            this.from = from;
+            this.size = size;
+            this.last = size == 0 ? null : get(size - 1);
+        }
+
+        @Override
+        public Block get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            int position = from + index;
+            return chunks[position >>> CHUNK_BITS][position & (CHUNK - 1)];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public List<Block> subList(int fromIndex, int toIndex) {
+            if (fromIndex < 0 || toIndex > size || fromIndex > toIndex) {
+                throw new IndexOutOfBoundsException("[" + fromIndex + ", " + toIndex + ") de " + size);
+            }
+            return new Snapshot(chunks, from + fromIndex, toIndex - fromIndex);
+        }
+
+        private Object writeReplace() {
+            return new ArrayList<>(this);
+        }
+    }
 }
@@ -0,0 +1,281 @@
+package com.blockchain.blockchain.agent;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/*
+ * Classe que representa o registro em disco da blockchain de um agente.
+ * Os blocos são gravados apenas no final (append-only) em arquivos de segmento de tamanho limitado,
+ * e um arquivo de índice guarda uma entrada de tamanho fixo por altura:
+ * número do segmento, posição, tamanho e CRC32 do registro.
+ *
+ * A leitura é feita por arquivos mapeados em memória, de forma que reiniciar um agente
+ * é uma varredura local do índice em vez de uma sincronização pela rede.
+ */
+class BlockLog implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(BlockLog.class);
+
+    static final int INDEX_ENTRY_SIZE = 16; // Bytes por entrada do índice
+    private static final String INDEX_FILE = "blocks.idx";
+
+    /*
+     * Política de sincronização (fsync) dos arquivos com o disco.
+     */
+    enum FsyncPolicy {
+        ALWAYS, // Sincroniza a cada bloco gravado
+        BATCH, // Sincroniza a cada lote de blocos gravados
+        NEVER // Deixa a sincronização a cargo do sistema operacional
+    }
+
+    private final Path directory; // Diretório dos arquivos do registro
+    private final long segmentSize; // Tamanho máximo de um segmento, em bytes
+    private final FsyncPolicy fsyncPolicy;
+    private final int fsyncBatch; // Blocos por lote na política BATCH
+    private final FileChannel index; // Arquivo de índice
+    private final Map<Integer, MappedByteBuffer> mappedSegments = new HashMap<>(); // Segmentos mapeados para leitura
+    private FileChannel segment; // Segmento ativo, onde os novos blocos são gravados
+    private int segmentNumber; // Número do segmento ativo
+    private long segmentPosition; // Próxima posição livre no segmento ativo
+    private int count; // Quantidade de blocos no registro
+    private int unsynced; // Blocos gravados desde a última sincronização
+    private boolean truncated; // Indica se houve um truncamento desde a última sincronização (muda o tamanho dos arquivos)
+
+    /*
+     * Abre o registro no diretório informado, usando as configurações de AgentConfig.
+     */
+    static BlockLog open(Path directory) throws IOException {
+        return new BlockLog(directory, AgentConfig.storeSegmentBytes(), AgentConfig.storeFsyncPolicy(), AgentConfig.storeFsyncBatch());
+    }
+
+    BlockLog(Path directory, long segmentSize, FsyncPolicy fsyncPolicy, int fsyncBatch) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncBatch = Math.max(1, fsyncBatch);
+        Files.createDirectories(directory);
+        index = FileChannel.open(directory.resolve(INDEX_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        recover();
+    }
+
+    /*
+     * Descarta entradas incompletas deixadas por uma interrupção durante a gravação
+     * e posiciona o segmento ativo logo após o último bloco válido.
+     */
+    private void recover() throws IOException {
+        count = (int) (index.size() / INDEX_ENTRY_SIZE);
+        while (count > 0) {
+            Entry last = entry(count - 1);
+            Path path = segmentPath(last.segment);
+            if (Files.exists(path) && last.offset + last.length <= Files.size(path)) {
+                break;
+            }
+            count--;
+        }
+        truncate(count);
+    }
+
+    /*
+     * Grava um bloco no final do registro.
+     */
+    synchronized void append(Block block) throws IOException {
+        byte[] record = MessageCodec.encodeBlock(block);
+        if (segmentPosition > 0 && segmentPosition + record.length > segmentSize) {
+            openSegment(segmentNumber + 1, 0);
+        }
+
+        // O registro é gravado antes da entrada do índice, que só aponta para dados completos
+        writeFully(segment, ByteBuffer.wrap(record), segmentPosition);
+        CRC32 crc = new CRC32();
+        crc.update(record);
+        ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY_SIZE)
+                .putInt(segmentNumber)
+                .putInt((int) segmentPosition)
+                .putInt(record.length)
+                .putInt((int) crc.getValue());
+        entry.flip();
+        writeFully(index, entry, (long) count * INDEX_ENTRY_SIZE);
+
+        segmentPosition += record.length;
+        count++;
+        unsynced++;
+        syncByPolicy();
+    }
+
+    /*
+     * Sincroniza com o disco conforme a política: a cada alteração (ALWAYS) ou a cada lote (BATCH).
+     */
+    private void syncByPolicy() throws IOException {
+        if (fsyncPolicy == FsyncPolicy.ALWAYS || (fsyncPolicy == FsyncPolicy.BATCH && unsynced >= fsyncBatch)) {
+            sync();
+        }
+    }
+
+    /*
+     * Lê o bloco na altura informada a partir do segmento mapeado em memória.
+     */
+    synchronized Block read(int height) throws IOException {
+        if (height < 0 || height >= count) {
+            return null;
+        }
+        return read(entry(height));
+    }
+
+    /*
+     * Lê todos os blocos do registro, na ordem em que foram gravados.
+     * Se um registro estiver corrompido, o registro é truncado a partir dele.
+     */
+    synchronized List<Block> readAll() throws IOException {
+        List<Block> blocks = new ArrayList<>(count);
+        if (count == 0) {
+            return blocks;
+        }
+        MappedByteBuffer entries = index.map(FileChannel.MapMode.READ_ONLY, 0, (long) count * INDEX_ENTRY_SIZE);
+        for (int height = 0; height < count; height++) {
+            Entry entry = new Entry(entries.getInt(), entries.getInt(), entries.getInt(), entries.getInt());
+            Block block;
+            try {
+                block = read(entry);
+            } catch (IOException e) {
+                logger.warn("Registro corrompido na altura {} em {}: {}", height, directory, e.getMessage());
+                truncate(height);
+                break;
+            }
+            blocks.add(block);
+        }
+        return blocks;
+    }
+
+    /*
+     * Remove os blocos a partir da altura informada, mantendo apenas os anteriores.
+     */
+    synchronized void truncate(int height) throws IOException {
+        count = Math.max(0, Math.min(height, count));
+        index.truncate((long) count * INDEX_ENTRY_SIZE);
+        int lastSegment = 0;
+        long end = 0;
+        if (count > 0) {
+            Entry last = entry(count - 1);
+            lastSegment = last.segment;
+            end = last.offset + last.length;
+        }
+        // Segmentos posteriores ao último bloco mantido são removidos
+        for (int number = lastSegment + 1; Files.exists(segmentPath(number)); number++) {
+            mappedSegments.remove(number);
+            Files.delete(segmentPath(number));
+        }
+        mappedSegments.remove(lastSegment);
+        openSegment(lastSegment, end);
+        segment.truncate(end);
+        // Conta como uma alteração pendente: sem sincronizar, uma queda poderia trazer de volta os blocos descartados
+        truncated = true;
+        unsynced++;
+        syncByPolicy();
+    }
+
+    /*
+     * Sincroniza os blocos gravados com o disco.
+     * Depois de um truncamento, os metadados também são sincronizados, já que o tamanho dos arquivos mudou.
+     */
+    synchronized void sync() throws IOException {
+        if (unsynced == 0) {
+            return;
+        }
+        segment.force(truncated);
+        index.force(truncated);
+        unsynced = 0;
+        truncated = false;
+    }
+
+    /*
+     * Retorna a quantidade de blocos no registro.
+     */
+    synchronized int size() {
+        return count;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (fsyncPolicy != FsyncPolicy.NEVER) {
+            sync();
+        }
+        mappedSegments.clear();
+        segment.close();
+        index.close();
+    }
+
+    private Block read(Entry entry) throws IOException {
+        MappedByteBuffer buffer = mappedSegments.get(entry.segment);
+        if (buffer == null || buffer.capacity() < entry.offset + entry.length) {
+            // O segmento ativo cresce depois de mapeado: mapeia novamente até o tamanho atual
+            try (FileChannel channel = FileChannel.open(segmentPath(entry.segment), StandardOpenOption.READ)) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            mappedSegments.put(entry.segment, buffer);
+        }
+        if (buffer.capacity() < entry.offset + entry.length) {
+            throw new IOException("Registro fora do segmento " + entry.segment);
+        }
+        byte[] record = new byte[entry.length];
+        buffer.get(entry.offset, record);
+        CRC32 crc = new CRC32();
+        crc.update(record);
+        if ((int) crc.getValue() != entry.crc) {
+            throw new IOException("CRC inválido");
+        }
+        return MessageCodec.decodeBlock(record);
+    }
+
+    private Entry entry(int height) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(INDEX_ENTRY_SIZE);
+        long position = (long) height * INDEX_ENTRY_SIZE;
+        while (buffer.hasRemaining()) {
+            if (index.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Índice truncado na altura " + height);
+            }
+        }
+        buffer.flip();
+        return new Entry(buffer.getInt(), buffer.getInt(), buffer.getInt(), buffer.getInt());
+    }
+
+    private void openSegment(int number, long position) throws IOException {
+        if (segment != null) {
+            segment.force(false);
+            segment.close();
+        }
+        segment = FileChannel.open(segmentPath(number), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segmentNumber = number;
+        segmentPosition = position;
+    }
+
+    private Path segmentPath(int number) {
+        return directory.resolve(String.format("%08d.log", number));
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    /*
+     * Entrada do índice: onde está o registro de um bloco.
+     */
+    private record Entry(int segment, int offset, int length, int crc) {
+    }
+}
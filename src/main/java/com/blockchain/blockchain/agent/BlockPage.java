@@ -0,0 +1,42 @@
+package com.blockchain.blockchain.agent;
+
+import java.util.List;
+
+/*
+ * Classe que representa uma página de blocos consecutivos da blockchain de um agente.
+ * Cada página tem no máximo MAX_COUNT blocos; next é a altura do primeiro bloco da página
+ * seguinte, ou null quando a página chega à ponta.
+ */
+public class BlockPage {
+
+    public static final int MAX_COUNT = 500; // Maior quantidade de blocos em uma página
+
+    private final int height; // Altura da ponta da blockchain quando a página foi montada
+    private final int from; // Altura do primeiro bloco pedido
+    private final List<Block> blocks; // Blocos da página, em ordem de altura
+    private final Integer next; // Altura do primeiro bloco da página seguinte
+
+    BlockPage(int height, int from, List<Block> blocks) {
+        this.height = height;
+        this.from = from;
+        this.blocks = blocks;
+        int end = from + blocks.size();
+        this.next = !blocks.isEmpty() && end <= height ? end : null;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getFrom() {
+        return from;
+    }
+
+    public List<Block> getBlocks() {
+        return blocks;
+    }
+
+    public Integer getNext() {
+        return next;
+    }
+}
@@ -0,0 +1,237 @@
+package com.blockchain.blockchain.agent;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/*
+ * Classe que representa a árvore de blocos conhecidos por um agente, incluindo ramos concorrentes.
+ *
+ * Cada nó guarda o trabalho acumulado desde o bloco raiz. A ponta escolhida é sempre a do ramo
+ * com mais trabalho acumulado; quando um ramo lateral passa a ter mais trabalho, a árvore informa
+ * a reorganização (blocos a desconectar e a conectar), calculada apenas até o ancestral comum.
+ * Cada bloco precisa declarar a dificuldade exigida pelo seu ramo (Difficulty), calculada a partir
+ * dos blocos anteriores do mesmo ramo; o trabalho de um bloco depende da sua dificuldade.
+ * Como o ajuste usa os timestamps dos blocos, eles também são conferidos em relação ao bloco anterior.
+ *
+ * Apenas os últimos KEEP_DEPTH níveis ficam na árvore: a cada PRUNE_INTERVAL blocos aceitos,
+ * os nós mais antigos (e os ramos laterais abandonados) são descartados.
+ */
+class BlockTree {
+
+    static final int KEEP_DEPTH = 1000; // Níveis mantidos abaixo da ponta
+    static final int PRUNE_INTERVAL = 100; // Blocos aceitos entre duas podas
+
+    /*
+     * Resultado da inserção de um bloco na árvore.
+     */
+    enum Status {
+        EXTENDED, // O bloco estendeu a ponta atual
+        REORGANIZED, // O bloco tornou um ramo lateral o ramo principal
+        SIDE_BRANCH, // O bloco foi guardado em um ramo lateral
+        DUPLICATE, // O bloco já era conhecido
+        ORPHAN, // O bloco anterior é desconhecido
+        INVALID, // O bloco não se encaixa no bloco anterior (altura ou dificuldade)
+        INVALID_TIMESTAMP // O timestamp não é posterior ao do bloco anterior ou está adiantado demais
+    }
+
+    /*
+     * Resultado da inserção, com as mudanças no ramo principal.
+     * disconnected vai da ponta antiga até logo acima do ancestral comum; connected vai do ancestral até a nova ponta.
+     */
+    record Result(Status status, List<Block> disconnected, List<Block> connected) {
+
+        boolean isAccepted() {
+            return status == Status.EXTENDED || status == Status.REORGANIZED || status == Status.SIDE_BRANCH;
+        }
+
+        boolean isTipChanged() {
+            return status == Status.EXTENDED || status == Status.REORGANIZED;
+        }
+
+        private static Result of(Status status) {
+            return new Result(status, List.of(), List.of());
+        }
+    }
+
+    private final Map<Hash32, Node> nodes = new HashMap<>(); // Nós pela chave do hash do bloco
+    private final TreeMap<Integer, List<Node>> levels = new TreeMap<>(); // Nós por altura, usados na poda
+    private Node best; // Ponta do ramo com mais trabalho acumulado
+    private int acceptedSincePrune;
+
+    /*
+     * Cria a árvore a partir do ramo principal atual, mantendo apenas os últimos KEEP_DEPTH blocos.
+     */
+    BlockTree(List<Block> mainChain) {
+        BigInteger work = BigInteger.ZERO;
+        int base = Math.max(0, mainChain.size() - 1 - KEEP_DEPTH);
+        Node parent = null;
+        for (int height = 0; height < mainChain.size(); height++) {
+            Block block = mainChain.get(height);
+            work = work.add(work(block));
+            if (height >= base) {
+                parent = insert(block, parent, height, work);
+            }
+        }
+        best = parent;
+    }
+
+    /*
+     * Insere um bloco na árvore e escolhe novamente a ponta.
+     */
+    Result add(Block block) {
+        if (nodes.containsKey(block.hashKey())) {
+            return Result.of(Status.DUPLICATE);
+        }
+        Node parent = nodes.get(block.previousHashKey());
+        if (parent == null) {
+            return Result.of(Status.ORPHAN);
+        }
+        if (block.getIndex() != parent.height + 1 || block.getDifficulty() != nextDifficulty(parent)) {
+            return Result.of(Status.INVALID);
+        }
+        if (!Difficulty.isTimestampValid(parent.block, block, System.currentTimeMillis())) {
+            return Result.of(Status.INVALID_TIMESTAMP);
+        }
+
+        Node node = insert(block, parent, parent.height + 1, parent.work.add(work(block)));
+        Result result;
+        if (parent == best) {
+            best = node;
+            result = new Result(Status.EXTENDED, List.of(), List.of(block));
+        } else if (node.work.compareTo(best.work) > 0) {
+            result = reorganize(node);
+        } else {
+            result = Result.of(Status.SIDE_BRANCH);
+        }
+
+        if (++acceptedSincePrune >= PRUNE_INTERVAL) {
+            prune();
+        }
+        return result;
+    }
+
+    /*
+     * Retorna a dificuldade exigida do bloco seguinte ao bloco com a chave informada,
+     * ou -1 se o bloco não estiver na árvore.
+     */
+    int nextDifficulty(Hash32 hash) {
+        Node parent = nodes.get(hash);
+        return parent == null ? -1 : nextDifficulty(parent);
+    }
+
+    /*
+     * Calcula a dificuldade exigida do bloco seguinte ao nó informado, percorrendo o ramo do nó
+     * até o início da janela de ajuste. Retorna -1 se esse trecho do ramo já foi podado.
+     */
+    private int nextDifficulty(Node parent) {
+        int height = parent.height + 1;
+        if (!Difficulty.isRetarget(height)) {
+            return parent.block.getDifficulty();
+        }
+        Node first = parent;
+        int start = Difficulty.windowStart(height);
+        while (first != null && first.height > start) {
+            first = first.parent;
+        }
+        return first == null ? -1 : Difficulty.next(parent.block, first.block);
+    }
+
+    /*
+     * Indica se o bloco com a chave informada está na árvore.
+     */
+    boolean contains(Hash32 hash) {
+        return nodes.containsKey(hash);
+    }
+
+    /*
+     * Quantidade de nós na árvore.
+     */
+    int size() {
+        return nodes.size();
+    }
+
+    /*
+     * Troca a ponta pelo nó informado, percorrendo os dois ramos apenas até o ancestral comum.
+     */
+    private Result reorganize(Node tip) {
+        List<Block> disconnected = new ArrayList<>();
+        List<Block> connected = new ArrayList<>();
+        Node oldBranch = best;
+        Node newBranch = tip;
+        while (oldBranch != newBranch) {
+            if (oldBranch.height >= newBranch.height) {
+                disconnected.add(oldBranch.block);
+                oldBranch = oldBranch.parent;
+            } else {
+                connected.add(newBranch.block);
+                newBranch = newBranch.parent;
+            }
+            if (oldBranch == null || newBranch == null) {
+                // O ancestral comum já foi podado: a reorganização seria mais funda que o permitido
+                return Result.of(Status.SIDE_BRANCH);
+            }
+        }
+        Collections.reverse(connected);
+        best = tip;
+        return new Result(Status.REORGANIZED, disconnected, connected);
+    }
+
+    /*
+     * Remove os nós abaixo da janela de KEEP_DEPTH níveis, incluindo ramos laterais abandonados.
+     */
+    private void prune() {
+        acceptedSincePrune = 0;
+        Map<Integer, List<Node>> old = levels.headMap(best.height - KEEP_DEPTH);
+        for (List<Node> level : old.values()) {
+            for (Node node : level) {
+                nodes.remove(node.block.hashKey());
+            }
+        }
+        old.clear();
+        Map.Entry<Integer, List<Node>> base = levels.firstEntry();
+        if (base != null) {
+            for (Node node : base.getValue()) {
+                node.parent = null;
+            }
+        }
+    }
+
+    private Node insert(Block block, Node parent, int height, BigInteger work) {
+        if (parent != null) {
+            block.linkTo(parent.block);
+        }
+        Node node = new Node(block, parent, height, work);
+        nodes.put(block.hashKey(), node);
+        levels.computeIfAbsent(height, h -> new ArrayList<>(1)).add(node);
+        return node;
+    }
+
+    /*
+     * Trabalho representado por um bloco: a quantidade esperada de hashes para a sua dificuldade (2^dificuldade).
+     */
+    static BigInteger work(Block block) {
+        return BigInteger.ONE.shiftLeft(Math.max(0, Math.min(Difficulty.MAX, block.getDifficulty())));
+    }
+
+    /*
+     * Nó da árvore: um bloco, o nó do bloco anterior, a altura e o trabalho acumulado.
+     */
+    private static final class Node {
+        private final Block block;
+        private Node parent;
+        private final int height;
+        private final BigInteger work;
+
+        private Node(Block block, Node parent, int height, BigInteger work) {
+            this.block = block;
+            this.parent = parent;
+            this.height = height;
+            this.work = work;
+        }
+    }
+}
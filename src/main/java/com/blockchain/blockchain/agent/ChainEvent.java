@@ -0,0 +1,88 @@
+package com.blockchain.blockchain.agent;
+
+/*
+ * Classe que representa um evento da blockchain de um agente, enviado aos assinantes de ChainEvents.
+ *
+ * BLOCK: um bloco novo foi incluído na árvore de blocos; status diz se estendeu o ramo principal,
+ * ficou em um ramo lateral ou causou uma reorganização.
+ * REORG: o ramo principal foi trocado a partir da altura forkHeight + 1; disconnected e connected
+ * são as quantidades de blocos removidos e aplicados.
+ * TIP: a ponta da blockchain mudou para o bloco de altura height e hash hash.
+ */
+public class ChainEvent {
+
+    public enum Type { BLOCK, REORG, TIP }
+
+    private final Type type;
+    private final String agent; // Nome do agente em que o evento aconteceu
+    private final int height; // Altura do bloco do evento
+    private final String hash; // Hash do bloco do evento
+    private final Block block; // Bloco incluído, apenas nos eventos BLOCK
+    private final String status; // Resultado da inclusão (BlockTree.Status), apenas nos eventos BLOCK
+    private final int forkHeight; // Altura do ancestral comum, apenas nos eventos REORG
+    private final int disconnected; // Blocos removidos do ramo principal, apenas nos eventos REORG
+    private final int connected; // Blocos aplicados ao ramo principal, apenas nos eventos REORG
+
+    private ChainEvent(Type type, String agent, Block block, BlockTree.Status status,
+                       int forkHeight, int disconnected, int connected) {
+        this.type = type;
+        this.agent = agent;
+        this.height = block.getIndex();
+        this.hash = block.getHash();
+        this.block = type == Type.BLOCK ? block : null;
+        this.status = status == null ? null : status.name();
+        this.forkHeight = forkHeight;
+        this.disconnected = disconnected;
+        this.connected = connected;
+    }
+
+    static ChainEvent block(String agent, Block block, BlockTree.Status status) {
+        return new ChainEvent(Type.BLOCK, agent, block, status, -1, 0, 0);
+    }
+
+    static ChainEvent reorg(String agent, Block tip, BlockTree.Result result) {
+        int forkHeight = result.connected().get(0).getIndex() - 1;
+        return new ChainEvent(Type.REORG, agent, tip, null, forkHeight,
+                result.disconnected().size(), result.connected().size());
+    }
+
+    static ChainEvent tip(String agent, Block tip) {
+        return new ChainEvent(Type.TIP, agent, tip, null, -1, 0, 0);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getAgent() {
+        return agent;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public Block getBlock() {
+        return block;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public int getForkHeight() {
+        return forkHeight;
+    }
+
+    public int getDisconnected() {
+        return disconnected;
+    }
+
+    public int getConnected() {
+        return connected;
+    }
+}
@@ -0,0 +1,109 @@
+package com.blockchain.blockchain.agent;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Classe que distribui os eventos da blockchain (ChainEvent) dos agentes aos assinantes.
+ *
+ * Os eventos são publicados de dentro da inclusão de blocos do agente, então a publicação nunca bloqueia:
+ * cada assinante tem a sua fila limitada, e um assinante cuja fila enche é desconectado, em vez de
+ * atrasar a mineração e a inclusão de blocos ou de perder eventos sem avisar. O consumo das filas
+ * (por exemplo, o envio por server-sent events) fica com quem assinou.
+ */
+public final class ChainEvents {
+
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final AtomicLong published = new AtomicLong(); // Eventos publicados
+    private final AtomicLong overflowed = new AtomicLong(); // Assinantes desconectados por fila cheia
+
+    /*
+     * Cria uma assinatura dos eventos do agente informado, ou de todos os agentes se agent for null.
+     */
+    public Subscription subscribe(String agent, int capacity) {
+        Subscription subscription = new Subscription(agent, capacity);
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    /*
+     * Entrega o evento às filas dos assinantes interessados, sem bloquear.
+     */
+    void publish(ChainEvent event) {
+        published.incrementAndGet();
+        for (Subscription subscription : subscriptions) {
+            if (subscription.agent == null || subscription.agent.equals(event.getAgent())) {
+                subscription.offer(event);
+            }
+        }
+    }
+
+    public int getSubscribers() {
+        return subscriptions.size();
+    }
+
+    public long getPublished() {
+        return published.get();
+    }
+
+    public long getOverflowed() {
+        return overflowed.get();
+    }
+
+    /*
+     * Assinatura dos eventos, com uma fila limitada de eventos ainda não consumidos.
+     */
+    public final class Subscription implements AutoCloseable {
+
+        private final String agent; // Agente assinado, ou null para todos
+        private final BlockingQueue<ChainEvent> queue;
+        private volatile boolean closed;
+        private volatile boolean overflow; // Fechada porque a fila encheu
+
+        private Subscription(String agent, int capacity) {
+            this.agent = agent;
+            this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        }
+
+        private void offer(ChainEvent event) {
+            if (closed) {
+                return;
+            }
+            if (!queue.offer(event)) {
+                overflow = true;
+                overflowed.incrementAndGet();
+                close();
+            }
+        }
+
+        /*
+         * Retorna o próximo evento, esperando até o tempo informado.
+         * Retorna null se o tempo acabou ou se a assinatura foi fechada.
+         */
+        public ChainEvent poll(long timeout, TimeUnit unit) throws InterruptedException {
+            return closed ? null : queue.poll(timeout, unit);
+        }
+
+        public boolean isClosed() {
+            return closed;
+        }
+
+        /*
+         * Indica se a assinatura foi fechada porque o assinante não consumiu os eventos a tempo.
+         */
+        public boolean isOverflow() {
+            return overflow;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            subscriptions.remove(this);
+            queue.clear();
+        }
+    }
+}
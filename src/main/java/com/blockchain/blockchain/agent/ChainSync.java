@@ -0,0 +1,406 @@
+package com.blockchain.blockchain.agent;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+import static com.blockchain.blockchain.agent.Message.MESSAGE_TYPE.*;
+
+/*
+ * Classe responsável pela sincronização incremental da blockchain de um agente.
+ *
+ * Os agentes anunciam a altura e o hash da sua ponta (INFO_TIP). Quem está atrás pede apenas
+ * os cabeçalhos posteriores à sua ponta (REQ_HEADERS), confere o encadeamento e depois baixa
+ * os blocos completos em páginas (REQ_BLOCKS), distribuídas entre todos os pares que possuem
+ * aquelas alturas. Um agente 10 blocos atrás baixa apenas esses 10 blocos.
+ *
+ * Se a ponta local estiver em outro ramo, os cabeçalhos não se encadeiam: o pedido recua
+ * em distâncias que dobram a cada tentativa até alcançar o ancestral comum, e os blocos do
+ * ramo do par são entregues à árvore de blocos, que decide a reorganização.
+ *
+ * A ponta de um par só vale enquanto ele a serve: ela é esquecida quando o par sai da rede, fica
+ * inalcançável, deixa um pedido sem resposta ou não tem os cabeçalhos que anunciou. Um par vivo
+ * volta a contar no próximo anúncio; um par morto ou mentiroso não segura a mineração para sempre.
+ */
+class ChainSync {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChainSync.class);
+
+    static final int MAX_HEADERS = 2000; // Cabeçalhos por requisição
+    static final int PAGE_SIZE = 128; // Blocos por página de download
+    static final long REQUEST_TIMEOUT = 5000; // Tempo, em ms, para pedir novamente a outro par
+
+    private final Agent agent;
+    private final HeaderCache headerCache = new HeaderCache(AgentConfig.headerCacheSize()); // Cabeçalhos servidos recentemente
+    private final Map<Integer, Tip> peerTips = new HashMap<>(); // Última ponta anunciada por cada par (porta)
+    private final TreeMap<Integer, Hash32> headerHashes = new TreeMap<>(); // Hashes dos cabeçalhos conferidos, por altura
+    private final TreeMap<Integer, Page> pages = new TreeMap<>(); // Páginas pedidas e ainda não recebidas, por altura inicial
+    private final TreeMap<Integer, Block> bodies = new TreeMap<>(); // Blocos recebidos fora de ordem, por altura
+    private int headersPeer = -1; // Par de quem os cabeçalhos estão sendo baixados
+    private long headersRequestedAt; // Momento do último pedido de cabeçalhos
+    private int nextPeer; // Contador para distribuir as páginas entre os pares
+    private int probeBack = 1; // Distância, abaixo da ponta local, do próximo pedido de cabeçalhos
+
+    ChainSync(Agent agent) {
+        this.agent = agent;
+    }
+
+    /*
+     * Cria a mensagem que anuncia a ponta deste agente.
+     */
+    Message tipMessage() {
+        Block tip = agent.getLatestBlock();
+        return new Message.MessageBuilder()
+                .withType(INFO_TIP)
+                .withSender(agent.getPort())
+                .withHeight(tip.getIndex())
+                .withHash(tip.getHash())
+                .build();
+    }
+
+    /*
+     * Registra a ponta anunciada por um par e inicia o download se ele estiver à frente.
+     * Retorna true se este agente está à frente do par, para que responda com a própria ponta.
+     */
+    synchronized boolean onTip(int peer, int height, String hash) {
+        peerTips.put(peer, new Tip(height, hash));
+        int localHeight = agent.getLatestBlock().getIndex();
+        if (height > localHeight) {
+            requestHeaders();
+        }
+        return localHeight > height;
+    }
+
+    /*
+     * Esquece a ponta anunciada por um par que saiu da rede.
+     */
+    synchronized void forgetTip(int peer) {
+        dropTip(peer);
+    }
+
+    /*
+     * Indica se algum par anunciou uma ponta à frente da ponta local.
+     */
+    synchronized boolean isBehind() {
+        int localHeight = agent.getLatestBlock().getIndex();
+        for (Tip tip : peerTips.values()) {
+            if (tip.height > localHeight) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /*
+     * Retorna quantos blocos a ponta local está atrás da ponta mais alta anunciada pelos pares, ou 0.
+     */
+    synchronized int lag() {
+        int localHeight = agent.getLatestBlock().getIndex();
+        int lag = 0;
+        for (Tip tip : peerTips.values()) {
+            lag = Math.max(lag, tip.height - localHeight);
+        }
+        return lag;
+    }
+
+    /*
+     * Retorna os cabeçalhos da blockchain local a partir da altura pedida, copiados pelo cache de cabeçalhos.
+     */
+    List<Block> headers(int from, int count) {
+        List<Block> blocks = agent.getBlocks(from, Math.min(count, MAX_HEADERS));
+        List<Block> headers = new ArrayList<>(blocks.size());
+        for (Block block : blocks) {
+            headers.add(headerCache.header(block));
+        }
+        return headers;
+    }
+
+    HeaderCache getHeaderCache() {
+        return headerCache;
+    }
+
+    /*
+     * Retorna os blocos completos da blockchain local no intervalo pedido.
+     */
+    List<Block> blocks(int from, int count) {
+        return agent.getBlocks(from, Math.min(count, PAGE_SIZE));
+    }
+
+    /*
+     * Confere os cabeçalhos recebidos e agenda o download dos blocos completos.
+     * Os cabeçalhos precisam ter índices contínuos e se encadear à blockchain local ou aos cabeçalhos já conferidos.
+     * Se o primeiro cabeçalho não se encadeia, a ponta local está em outro ramo: pede de novo a partir de uma altura menor.
+     */
+    synchronized void onHeaders(int peer, int from, List<Block> headers) {
+        if (peer == headersPeer) {
+            headersPeer = -1;
+        }
+        if (headers == null || headers.isEmpty()) {
+            dropTip(peer); // O par não tem os blocos que anunciou
+            requestHeaders();
+            return;
+        }
+        Hash32 previousHash = expectedHash(from - 1);
+        if (headerHashes.isEmpty() && !Objects.equals(previousHash, headers.get(0).previousHashKey())) {
+            int localHeight = agent.getLatestBlock().getIndex();
+            if (probeBack >= localHeight) {
+                logger.warn("{} não encontrou um ancestral comum com {}", agent.getPort(), peer);
+                probeBack = 1;
+                dropTip(peer);
+                return;
+            }
+            probeBack = Math.min(probeBack * 2, localHeight);
+            requestHeaders();
+            return;
+        }
+        int height = from;
+        for (Block header : headers) {
+            if (header.getIndex() != height || previousHash == null || !previousHash.equals(header.previousHashKey())) {
+                logger.warn("{} recebeu cabeçalhos que não se encadeiam na altura {}", agent.getPort(), height);
+                dropTip(peer);
+                return;
+            }
+            if (!agent.hasBlock(header.hashKey())) {
+                headerHashes.put(height, header.hashKey());
+            }
+            previousHash = header.hashKey();
+            height++;
+        }
+        probeBack = 1;
+        schedulePages();
+        requestHeaders(); // Continua se algum par anunciou uma ponta além dos cabeçalhos recebidos
+    }
+
+    /*
+     * Recebe uma página de blocos completos e aplica, em ordem, os que seguem a ponta local.
+     * Cada bloco precisa ter o mesmo hash do cabeçalho conferido para a sua altura
+     * e a página é validada antes; os blocos a partir do primeiro inválido são descartados.
+     * Um bloco com outro hash indica que o ramo dos cabeçalhos foi abandonado pelos pares,
+     * que deixam de servi-lo: os cabeçalhos são descartados e pedidos de novo.
+     */
+    synchronized void onBlocks(int peer, int from, List<Block> blocks) {
+        pages.remove(from);
+        boolean stale = false;
+        if (blocks != null) {
+            int invalid = ChainValidator.validate(null, blocks);
+            for (Block block : blocks) {
+                if (invalid != ChainValidator.VALID && block.getIndex() >= invalid) {
+                    logger.warn("{} recebeu de {} um bloco inválido na altura {}", agent.getPort(), peer, invalid);
+                    break;
+                }
+                Hash32 expected = headerHashes.get(block.getIndex());
+                if (Objects.equals(expected, block.hashKey())) {
+                    bodies.put(block.getIndex(), block);
+                } else if (expected != null) {
+                    stale = true;
+                }
+            }
+        }
+        applyBodies();
+        if (stale) {
+            reset();
+            requestHeaders();
+            return;
+        }
+        schedulePages();
+    }
+
+    /*
+     * Pede novamente a outro par as páginas e cabeçalhos que não chegaram dentro do prazo
+     * e retoma o download se algum par continua à frente sem nada pendente.
+     * As pontas dos pares inalcançáveis e dos que não responderam no prazo são esquecidas.
+     */
+    synchronized void retryStaleRequests() {
+        long now = System.currentTimeMillis();
+        for (Integer peer : new ArrayList<>(peerTips.keySet())) {
+            if (!agent.isReachable(peer)) {
+                dropTip(peer);
+            }
+        }
+        if (headersPeer >= 0 && now - headersRequestedAt > REQUEST_TIMEOUT) {
+            dropTip(headersPeer);
+        }
+        for (Page page : new ArrayList<>(pages.values())) {
+            if (now - page.requestedAt > REQUEST_TIMEOUT) {
+                dropTip(page.peer);
+            }
+        }
+        if (headersPeer < 0 && pages.isEmpty()) {
+            requestHeaders();
+        }
+        schedulePages();
+    }
+
+    /*
+     * Esquece a ponta do par e libera os pedidos pendentes com ele, que passam a outro par.
+     */
+    private void dropTip(int peer) {
+        if (peerTips.remove(peer) != null) {
+            logger.debug("{} esqueceu a ponta anunciada por {}", agent.getPort(), peer);
+        }
+        if (headersPeer == peer) {
+            headersPeer = -1;
+        }
+        pages.values().removeIf(page -> page.peer == peer);
+    }
+
+    /*
+     * Pede ao par com a maior ponta os cabeçalhos seguintes ao último cabeçalho conhecido.
+     */
+    private void requestHeaders() {
+        if (headersPeer >= 0) {
+            return;
+        }
+        int localHeight = agent.getLatestBlock().getIndex();
+        int bestHeight = headerHashes.isEmpty() ? localHeight : headerHashes.lastKey();
+        int from = headerHashes.isEmpty() ? Math.max(1, localHeight + 1 - probeBack) : bestHeight + 1;
+        int bestPeer = -1;
+        for (Map.Entry<Integer, Tip> entry : peerTips.entrySet()) {
+            if (entry.getValue().height > bestHeight) {
+                bestPeer = entry.getKey();
+                bestHeight = entry.getValue().height;
+            }
+        }
+        if (bestPeer < 0) {
+            return;
+        }
+        headersPeer = bestPeer;
+        headersRequestedAt = System.currentTimeMillis();
+        agent.send(bestPeer, new Message.MessageBuilder()
+                .withType(REQ_HEADERS)
+                .withSender(agent.getPort())
+                .withHeight(from)
+                .withCount(MAX_HEADERS)
+                .build());
+    }
+
+    /*
+     * Divide as alturas com cabeçalho conferido e ainda sem bloco em páginas,
+     * distribuindo cada página a um dos pares que anunciaram possuir aquelas alturas.
+     */
+    private void schedulePages() {
+        if (headerHashes.isEmpty()) {
+            return;
+        }
+        int last = headerHashes.lastKey();
+        int height = headerHashes.firstKey();
+        while (height <= last) {
+            if (bodies.containsKey(height) || isRequested(height)) {
+                height++;
+                continue;
+            }
+            int from = height;
+            while (height <= last && height - from < PAGE_SIZE && !bodies.containsKey(height) && !isRequested(height)) {
+                height++;
+            }
+            int peer = choosePeer(height - 1);
+            if (peer < 0) {
+                return;
+            }
+            Page page = new Page(from, height - from, peer, System.currentTimeMillis());
+            pages.put(from, page);
+            agent.send(peer, new Message.MessageBuilder()
+                    .withType(REQ_BLOCKS)
+                    .withSender(agent.getPort())
+                    .withHeight(page.from)
+                    .withCount(page.count)
+                    .build());
+        }
+    }
+
+    /*
+     * Indica se a altura pertence a uma página já pedida.
+     */
+    private boolean isRequested(int height) {
+        Map.Entry<Integer, Page> page = pages.floorEntry(height);
+        return page != null && page.getValue().from + page.getValue().count > height;
+    }
+
+    /*
+     * Escolhe, em rodízio, um par cuja ponta alcança a altura informada.
+     */
+    private int choosePeer(int height) {
+        List<Integer> candidates = new ArrayList<>();
+        for (Map.Entry<Integer, Tip> entry : peerTips.entrySet()) {
+            if (entry.getValue().height >= height) {
+                candidates.add(entry.getKey());
+            }
+        }
+        if (candidates.isEmpty()) {
+            return -1;
+        }
+        return candidates.get(Math.floorMod(nextPeer++, candidates.size()));
+    }
+
+    /*
+     * Entrega à árvore de blocos, em ordem de altura, os blocos recebidos a partir do primeiro cabeçalho pendente.
+     * Os blocos de outro ramo ficam como ramo lateral até que o ramo tenha mais trabalho e se torne o principal.
+     */
+    private void applyBodies() {
+        while (!headerHashes.isEmpty()) {
+            int next = headerHashes.firstKey();
+            Block block = bodies.remove(next);
+            if (block == null) {
+                break;
+            }
+            if (!agent.addBlock(block, true)) {
+                // O bloco foi recusado: descarta o estado do download e recomeça pelos anúncios de ponta
+                logger.warn("{} recusou o bloco sincronizado na altura {}", agent.getPort(), next);
+                reset();
+                return;
+            }
+            headerHashes.remove(next);
+        }
+        // Remove os cabeçalhos que já se tornaram conhecidos (por exemplo, blocos recebidos por INFO_NEW_BLOCK)
+        while (!headerHashes.isEmpty() && agent.hasBlock(headerHashes.firstEntry().getValue())) {
+            bodies.remove(headerHashes.pollFirstEntry().getKey());
+        }
+        int first = headerHashes.isEmpty() ? Integer.MAX_VALUE : headerHashes.firstKey();
+        bodies.headMap(first).clear();
+        for (Iterator<Page> it = pages.values().iterator(); it.hasNext(); ) {
+            Page page = it.next();
+            if (page.from + page.count <= first) {
+                it.remove();
+            }
+        }
+    }
+
+    /*
+     * Hash esperado na altura informada: o do cabeçalho conferido ou o da blockchain local.
+     */
+    private Hash32 expectedHash(int height) {
+        Hash32 hash = headerHashes.get(height);
+        if (hash != null) {
+            return hash;
+        }
+        Block block = agent.getBlock(height);
+        return block == null ? null : block.hashKey();
+    }
+
+    private void reset() {
+        headerHashes.clear();
+        bodies.clear();
+        pages.clear();
+        headersPeer = -1;
+        probeBack = 1;
+    }
+
+    /*
+     * Ponta anunciada por um par.
+     */
+    private record Tip(int height, String hash) {
+    }
+
+    /*
+     * Página de blocos pedida a um par.
+     */
+    private record Page(int from, int count, int peer, long requestedAt) {
+    }
+}
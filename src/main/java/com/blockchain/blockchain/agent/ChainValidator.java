@@ -0,0 +1,142 @@
+package com.blockchain.blockchain.agent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Classe responsável por validar uma sequência de blocos recebida de um par.
+ *
+ * A validação é feita em duas etapas: primeiro a prova de trabalho e a raiz de Merkle
+ * de cada bloco são recalculadas em paralelo, em trechos distribuídos entre os núcleos; depois uma passagem sequencial, barata,
+ * confere os índices contínuos, o encadeamento pelo hash do bloco anterior, se a dificuldade segue a do bloco anterior
+ * e se o timestamp é posterior ao do bloco anterior, sem estar adiantado demais em relação ao relógio local.
+ * O resultado é a altura do primeiro bloco inválido, para que apenas os blocos anteriores sejam aceitos.
+ */
+final class ChainValidator {
+
+    static final int VALID = -1; // Resultado de uma sequência sem blocos inválidos
+    static final int MIN_CHUNK = 256; // Menor quantidade de blocos por tarefa paralela
+    private static final Hash32 GENESIS_HASH = new Genesis().hashKey(); // Hash do bloco raiz local
+
+    // Pool compartilhado de threads de validação, criado na primeira validação paralela
+    private static final AtomicInteger workerCount = new AtomicInteger(0);
+    private static ThreadPoolExecutor workers;
+
+    private ChainValidator() {
+    }
+
+    /*
+     * Valida os blocos informados, que devem seguir o bloco anterior informado.
+     * Se o bloco anterior for null, o primeiro bloco não tem o encadeamento conferido,
+     * exceto quando é o bloco raiz, que precisa ser idêntico ao bloco raiz local.
+     * Retorna a altura do primeiro bloco inválido, ou VALID se todos forem válidos.
+     */
+    static int validate(Block previous, List<Block> blocks) {
+        int invalid = firstInvalidProof(blocks);
+        int end = invalid < 0 ? blocks.size() : invalid;
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < end; i++) {
+            Block block = blocks.get(i);
+            if (!isLinked(i == 0 ? previous : blocks.get(i - 1), block, now)) {
+                end = i;
+                break;
+            }
+        }
+        return end < blocks.size() ? heightOf(blocks, end) : VALID;
+    }
+
+    /*
+     * Recalcula a prova de trabalho de todos os blocos e retorna a posição do primeiro bloco inválido, ou -1.
+     * Cada tarefa para no primeiro bloco inválido do seu trecho, e os trechos posteriores ao
+     * menor bloco inválido já encontrado não são mais verificados.
+     */
+    private static int firstInvalidProof(List<Block> blocks) {
+        int size = blocks.size();
+        int threads = Runtime.getRuntime().availableProcessors();
+        if (threads <= 1 || size <= MIN_CHUNK) {
+            for (int i = 0; i < size; i++) {
+                if (!isValid(blocks.get(i))) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        AtomicInteger first = new AtomicInteger(Integer.MAX_VALUE);
+        int chunk = Math.max(MIN_CHUNK, size / (threads * 4));
+        List<Callable<Void>> tasks = new ArrayList<>(size / chunk + 1);
+        for (int start = 0; start < size; start += chunk) {
+            final int from = start;
+            final int to = Math.min(size, start + chunk);
+            tasks.add(() -> {
+                for (int i = from; i < to && i < first.get(); i++) {
+                    if (!isValid(blocks.get(i))) {
+                        first.accumulateAndGet(i, Math::min);
+                        break;
+                    }
+                }
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> future : workers(threads).invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 0; // Sem a validação completa, nenhum bloco é aceito
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Falha na validação paralela", e.getCause());
+        }
+        return first.get() == Integer.MAX_VALUE ? -1 : first.get();
+    }
+
+    /*
+     * Confere um único bloco, sem o encadeamento: a prova de trabalho do cabeçalho e se a raiz de Merkle
+     * corresponde aos dados. O bloco raiz não é minerado: é válido se for idêntico ao bloco raiz local.
+     */
+    static boolean isValid(Block block) {
+        if (block == null) {
+            return false;
+        }
+        if (block.getIndex() == 0) {
+            return GENESIS_HASH.equals(block.hashKey());
+        }
+        return ProofOfWork.verify(block) && Objects.equals(block.getMerkleRoot(), MerkleTree.root(block.getData()));
+    }
+
+    private static boolean isLinked(Block previous, Block block, long now) {
+        if (previous == null) {
+            return true;
+        }
+        return block.getIndex() == previous.getIndex() + 1 && Objects.equals(block.previousHashKey(), previous.hashKey())
+                && Difficulty.follows(previous, block) && Difficulty.isTimestampValid(previous, block, now);
+    }
+
+    private static int heightOf(List<Block> blocks, int position) {
+        Block block = blocks.get(position);
+        return block == null ? position : block.getIndex();
+    }
+
+    /*
+     * Retorna o pool de threads de validação, criando-o na primeira utilização.
+     */
+    private static synchronized ThreadPoolExecutor workers(int threads) {
+        if (workers == null) {
+            workers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+                Thread thread = new Thread(r, "validate-" + workerCount.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return workers;
+    }
+}
@@ -0,0 +1,90 @@
+package com.blockchain.blockchain.agent;
+
+/*
+ * Classe com a regra de ajuste da dificuldade de mineração.
+ *
+ * A dificuldade é a quantidade de bits zero iniciais exigidos no hash e fica no cabeçalho de cada bloco,
+ * de forma que cada blockchain tem a sua e os validadores conseguem conferi-la. Um bloco repete a
+ * dificuldade do bloco anterior, exceto nas alturas múltiplas do intervalo de ajuste R
+ * (blockchain.retarget.interval): nelas, o tempo observado entre o bloco h - R e o bloco anterior
+ * (R - 1 intervalos) é comparado com o tempo esperado para o intervalo desejado entre blocos
+ * (blockchain.block.interval.ms). Como cada bit dobra o trabalho, a dificuldade muda em
+ * log2(esperado / observado) bits, arredondado e limitado a MAX_STEP bits por ajuste.
+ *
+ * O primeiro ajuste acontece na altura 2R, para não medir a partir do timestamp fixo do bloco raiz.
+ *
+ * Os timestamps são escolhidos por quem minera, por isso são conferidos (isTimestampValid): cada bloco
+ * precisa ser posterior ao bloco anterior e estar no máximo blockchain.block.drift.ms à frente do relógio
+ * local. Sem isso, timestamps atrasados ou adiantados baixariam a dificuldade em MAX_STEP bits a cada ajuste.
+ */
+final class Difficulty {
+
+    static final int MAX = 256; // Maior dificuldade possível: todos os bits do hash iguais a zero
+    static final int MAX_STEP = 2; // Maior variação, em bits, em um ajuste (trabalho multiplicado ou dividido por 4)
+
+    private Difficulty() {
+    }
+
+    /*
+     * Indica se a dificuldade é ajustada no bloco da altura informada.
+     */
+    static boolean isRetarget(int height) {
+        int interval = AgentConfig.retargetInterval();
+        return interval > 1 && height > interval && height % interval == 0;
+    }
+
+    /*
+     * Altura do bloco usado como início da medição no ajuste do bloco da altura informada.
+     */
+    static int windowStart(int height) {
+        return height - AgentConfig.retargetInterval();
+    }
+
+    /*
+     * Calcula a dificuldade exigida do bloco seguinte ao bloco informado.
+     * first é o bloco na altura windowStart(altura do bloco seguinte), no mesmo ramo, e só é
+     * consultado nas alturas de ajuste.
+     */
+    static int next(Block previous, Block first) {
+        int height = previous.getIndex() + 1;
+        if (!isRetarget(height)) {
+            return previous.getDifficulty();
+        }
+        long expected = (AgentConfig.retargetInterval() - 1L) * AgentConfig.blockIntervalMillis();
+        long observed = Math.max(1, timestamp(previous) - timestamp(first));
+        int step = (int) Math.round(Math.log((double) expected / observed) / Math.log(2));
+        step = Math.max(-MAX_STEP, Math.min(MAX_STEP, step));
+        return Math.max(0, Math.min(MAX, previous.getDifficulty() + step));
+    }
+
+    /*
+     * Confere a dificuldade de um bloco apenas em relação ao bloco anterior: igual fora das
+     * alturas de ajuste e com variação de no máximo MAX_STEP nelas. A conferência exata,
+     * que depende dos blocos da janela de ajuste, é feita pela árvore de blocos.
+     */
+    static boolean follows(Block previous, Block block) {
+        int change = block.getDifficulty() - previous.getDifficulty();
+        return isRetarget(block.getIndex()) ? Math.abs(change) <= MAX_STEP : change == 0;
+    }
+
+    /*
+     * Confere o timestamp de um bloco: depois do timestamp do bloco anterior e no máximo
+     * maxFutureDriftMillis à frente do instante informado (o relógio local).
+     */
+    static boolean isTimestampValid(Block previous, Block block, long now) {
+        Long timestamp = block.getTimestamp();
+        return timestamp != null && timestamp > timestamp(previous) && timestamp <= now + AgentConfig.maxFutureDriftMillis();
+    }
+
+    /*
+     * Timestamp para um bloco minerado agora sobre o bloco informado: o relógio local,
+     * ou logo após o bloco anterior se ele tiver o mesmo instante ou estiver adiantado.
+     */
+    static long nextTimestamp(Block previous, long now) {
+        return Math.max(now, timestamp(previous) + 1);
+    }
+
+    private static long timestamp(Block block) {
+        return block.getTimestamp() == null ? 0L : block.getTimestamp();
+    }
+}
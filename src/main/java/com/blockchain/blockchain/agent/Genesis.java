@@ -8,14 +8,22 @@ public class Genesis extends Block {
 
     /*
      * Construtor da classe Genesis.
-     * Inicializa as propriedades do bloco Genesis com valores padrão fixos.
+     * Inicializa as propriedades do bloco Genesis com valores padrão fixos e a dificuldade inicial configurada.
      */
     public Genesis() {
+        this(AgentConfig.initialDifficulty());
+    }
+
+    /*
+     * Cria o bloco Genesis com a dificuldade inicial informada, herdada pelos blocos seguintes.
+     */
+    public Genesis(int difficulty) {
         this.index = 0;  // Índice inicial da blockchain
-        this.previousHash = "0000000000000000000000000000000000000000000000000000000000000000";  // Hash anterior vazio
+        this.previousHash = Hash32.of("0000000000000000000000000000000000000000000000000000000000000000");  // Hash anterior vazio
         this.creator = "ROOT";  // Criador do bloco Genesis
         this.timestamp = 0L;  // Timestamp inicial
         this.nonce = 0;  // Nonce inicial
-        this.hash = Utils.hash256("Genesis");  // Calcula o hash do bloco Genesis com base no seu nome
+        this.hash = Hash32.of(Utils.hash256("Genesis"));  // Calcula o hash do bloco Genesis com base no seu nome
+        this.difficulty = difficulty;  // Dificuldade inicial da blockchain
     }
 }
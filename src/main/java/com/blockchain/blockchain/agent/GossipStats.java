@@ -0,0 +1,45 @@
+package com.blockchain.blockchain.agent;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Classe que acumula os contadores da propagação de blocos por fofoca de um agente.
+ * Mostra quantos blocos foram repassados e quantas cópias repetidas foram descartadas.
+ */
+public class GossipStats {
+
+    private final AtomicLong blocksAnnounced = new AtomicLong(); // Blocos minerados e anunciados por este agente
+    private final AtomicLong blocksRelayed = new AtomicLong(); // Blocos recebidos e repassados a outros pares
+    private final AtomicLong messagesSent = new AtomicLong(); // Mensagens de bloco enviadas, somando todos os pares
+    private final AtomicLong duplicatesSuppressed = new AtomicLong(); // Cópias de blocos já vistos descartadas
+
+    void announced(int peers) {
+        blocksAnnounced.incrementAndGet();
+        messagesSent.addAndGet(peers);
+    }
+
+    void relayed(int peers) {
+        blocksRelayed.incrementAndGet();
+        messagesSent.addAndGet(peers);
+    }
+
+    void duplicate() {
+        duplicatesSuppressed.incrementAndGet();
+    }
+
+    public long getBlocksAnnounced() {
+        return blocksAnnounced.get();
+    }
+
+    public long getBlocksRelayed() {
+        return blocksRelayed.get();
+    }
+
+    public long getMessagesSent() {
+        return messagesSent.get();
+    }
+
+    public long getDuplicatesSuppressed() {
+        return duplicatesSuppressed.get();
+    }
+}
@@ -0,0 +1,162 @@
+package com.blockchain.blockchain.agent;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/*
+ * Classe que representa um hash de 32 bytes em quatro longs: é a forma em que os blocos guardam
+ * o próprio hash e o do bloco anterior, e a chave dos índices de blocos.
+ *
+ * Comparar e espalhar quatro longs é mais barato que fazer o mesmo com uma string hexadecimal
+ * de 64 caracteres, e o hashCode é calculado uma única vez, na criação. O texto hexadecimal
+ * (JSON, REST, registros) é gerado apenas quando pedido, por toString.
+ *
+ * Apenas um hash SHA-256 em hexadecimal minúsculo vira uma chave, com os mesmos 32 bytes; qualquer
+ * outro texto é recusado, para que dois textos diferentes nunca tenham a mesma chave.
+ */
+final class Hash32 {
+
+    private static final byte[] DIGITS = new byte[128]; // Valor de cada dígito hexadecimal minúsculo, ou -1
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.ISO_8859_1); // Dígito de cada valor
+
+    static {
+        Arrays.fill(DIGITS, (byte) -1);
+        for (int i = 0; i < 16; i++) {
+            DIGITS[HEX[i]] = (byte) i;
+        }
+    }
+
+    private final long a;
+    private final long b;
+    private final long c;
+    private final long d;
+    private final int hashCode;
+
+    private Hash32(long a, long b, long c, long d) {
+        this.a = a;
+        this.b = b;
+        this.c = c;
+        this.d = d;
+        this.hashCode = Long.hashCode(a ^ b ^ c ^ d);
+    }
+
+    /*
+     * Retorna a chave do hash informado, ou null se ele for null.
+     * Lança IllegalArgumentException se o valor não for um hash SHA-256 em hexadecimal minúsculo.
+     */
+    static Hash32 of(String hash) {
+        if (hash == null) {
+            return null;
+        }
+        if (!isRaw(hash)) {
+            throw new IllegalArgumentException("Hash inválido: " + hash);
+        }
+        return new Hash32(readHex(hash, 0), readHex(hash, 16), readHex(hash, 32), readHex(hash, 48));
+    }
+
+    /*
+     * Retorna a chave do hash informado, ou null se ele for null ou não for um hash válido.
+     * Usado nas buscas a partir de textos recebidos (REST), em que um hash inválido apenas não é encontrado.
+     */
+    static Hash32 parse(String hash) {
+        return hash == null || !isRaw(hash) ? null : of(hash);
+    }
+
+    /*
+     * Retorna a chave dos 32 bytes a partir da posição informada.
+     */
+    static Hash32 of(byte[] bytes, int offset) {
+        return new Hash32(readLong(bytes, offset), readLong(bytes, offset + 8),
+                readLong(bytes, offset + 16), readLong(bytes, offset + 24));
+    }
+
+    /*
+     * Indica se o valor é um hash SHA-256 em hexadecimal minúsculo, que volta idêntico de toString.
+     */
+    static boolean isRaw(String hash) {
+        if (hash.length() != Utils.HASH_SIZE * 2) {
+            return false;
+        }
+        for (int i = 0; i < hash.length(); i++) {
+            char ch = hash.charAt(i);
+            if (ch >= DIGITS.length || DIGITS[ch] < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*
+     * Escreve os 32 bytes no array informado, a partir da posição informada.
+     */
+    void copyTo(byte[] bytes, int offset) {
+        writeLong(bytes, offset, a);
+        writeLong(bytes, offset + 8, b);
+        writeLong(bytes, offset + 16, c);
+        writeLong(bytes, offset + 24, d);
+    }
+
+    /*
+     * Retorna uma cópia dos 32 bytes.
+     */
+    byte[] toBytes() {
+        byte[] bytes = new byte[Utils.HASH_SIZE];
+        copyTo(bytes, 0);
+        return bytes;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Hash32 other)) return false;
+        return hashCode == other.hashCode && a == other.a && b == other.b && c == other.c && d == other.d;
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    /*
+     * Retorna os 32 bytes em hexadecimal minúsculo.
+     */
+    @Override
+    public String toString() {
+        byte[] chars = new byte[Utils.HASH_SIZE * 2];
+        writeHex(chars, 0, a);
+        writeHex(chars, 16, b);
+        writeHex(chars, 32, c);
+        writeHex(chars, 48, d);
+        return new String(chars, StandardCharsets.ISO_8859_1);
+    }
+
+    private static void writeHex(byte[] chars, int offset, long value) {
+        for (int i = offset + 15; i >= offset; i--) {
+            chars[i] = HEX[(int) value & 0xF];
+            value >>>= 4;
+        }
+    }
+
+    private static long readHex(String hex, int from) {
+        long value = 0;
+        for (int i = from; i < from + 16; i++) {
+            value = (value << 4) | DIGITS[hex.charAt(i)];
+        }
+        return value;
+    }
+
+    private static long readLong(byte[] bytes, int offset) {
+        long value = 0;
+        for (int i = offset; i < offset + 8; i++) {
+            value = (value << 8) | (bytes[i] & 0xffL);
+        }
+        return value;
+    }
+
+    private static void writeLong(byte[] bytes, int offset, long value) {
+        for (int i = offset + 7; i >= offset; i--) {
+            bytes[i] = (byte) value;
+            value >>>= 8;
+        }
+    }
+}
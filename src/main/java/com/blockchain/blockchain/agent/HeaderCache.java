@@ -0,0 +1,110 @@
+package com.blockchain.blockchain.agent;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Classe que guarda os cabeçalhos (Block.toHeader) dos blocos servidos recentemente aos pares.
+ *
+ * Pares sincronizando pedem as mesmas faixas de cabeçalhos; com o cache, cada cabeçalho é copiado
+ * do bloco uma vez, em vez de uma vez por pedido. Os cabeçalhos ficam pela chave do hash do bloco,
+ * que identifica o seu conteúdo, então nunca precisam ser invalidados, nem em reorganizações.
+ *
+ * O cache é dividido em segmentos, escolhidos pelo hashCode da chave, cada um com o próprio bloqueio:
+ * pedidos de pares diferentes tratados em paralelo só disputam o bloqueio quando caem no mesmo segmento.
+ * É limitado: ao atingir a capacidade de um segmento, o cabeçalho usado há mais tempo nele é descartado.
+ */
+final class HeaderCache {
+
+    private static final int SEGMENTS = 16; // Quantidade máxima de segmentos (potência de 2)
+    private static final int MIN_SEGMENT = 64; // Menor capacidade de um segmento; caches pequenos têm um só
+
+    private final Segment[] segments;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    HeaderCache(int capacity) {
+        int count = Math.min(SEGMENTS, Integer.highestOneBit(Math.max(1, capacity / MIN_SEGMENT)));
+        int limit = Math.max(1, capacity / count);
+        this.segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment(limit);
+        }
+    }
+
+    /*
+     * Retorna o cabeçalho do bloco, copiando-o apenas se ainda não estiver no cache.
+     */
+    Block header(Block block) {
+        if (block.getData() == null) {
+            return block; // O bloco já é o próprio cabeçalho
+        }
+        Hash32 key = block.hashKey();
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            Block header = segment.get(key);
+            if (header != null) {
+                hits.increment();
+                return header;
+            }
+            misses.increment();
+            header = block.toHeader();
+            segment.put(key, header);
+            return header;
+        }
+    }
+
+    private Segment segmentFor(Hash32 key) {
+        int h = key.hashCode();
+        return segments[(h ^ (h >>> 16)) & (segments.length - 1)];
+    }
+
+    int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    long getHits() {
+        return hits.sum();
+    }
+
+    long getMisses() {
+        return misses.sum();
+    }
+
+    /*
+     * Segmento do cache: cabeçalhos em ordem de acesso, do mais antigo ao mais recente.
+     * Acessado apenas sob o bloqueio do próprio segmento.
+     */
+    private static final class Segment {
+
+        private final Map<Hash32, Block> headers;
+
+        Segment(int limit) {
+            this.headers = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Hash32, Block> eldest) {
+                    return size() > limit;
+                }
+            };
+        }
+
+        Block get(Hash32 key) {
+            return headers.get(key);
+        }
+
+        void put(Hash32 key, Block header) {
+            headers.put(key, header);
+        }
+
+        int size() {
+            return headers.size();
+        }
+    }
+}
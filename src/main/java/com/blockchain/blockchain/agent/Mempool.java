@@ -0,0 +1,161 @@
+package com.blockchain.blockchain.agent;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Classe que representa o conjunto de transações pendentes (mempool) de um agente.
+ *
+ * As transações ficam em um mapa por hash, que elimina duplicatas, e em um conjunto ordenado
+ * por taxa, que funciona como uma fila de prioridade concorrente: a de maior taxa fica no início
+ * e a de menor taxa no fim, onde é descartada quando o limite de tamanho é ultrapassado.
+ *
+ * As duas estruturas são alteradas juntas, dentro do compute do mapa para o hash da transação:
+ * a entrada no conjunto e o contador só mudam quando a entrada do mapa é criada ou removida,
+ * então uma inserção e uma remoção concorrentes da mesma transação nunca deixam uma transação
+ * no conjunto sem estar no mapa. O bloqueio é apenas o do compartimento do hash no mapa, de forma
+ * que submissões de transações diferentes e a mineração não disputam um bloqueio global.
+ */
+class Mempool {
+
+    /*
+     * Resultado da submissão de uma transação.
+     */
+    enum Status {
+        ACCEPTED, // A transação entrou no mempool
+        DUPLICATE, // A transação já estava no mempool
+        INVALID, // A transação tem campos inválidos
+        REJECTED // O mempool está cheio e a taxa da transação é a menor
+    }
+
+    // Maior taxa primeiro; entre taxas iguais, a transação mais antiga; o hash desempata
+    private static final Comparator<Transaction> PRIORITY = Comparator
+            .comparingLong(Transaction::getFee).reversed()
+            .thenComparingLong(Transaction::getTimestamp)
+            .thenComparing(Transaction::getHash);
+
+    private final Map<String, Transaction> transactions = new ConcurrentHashMap<>(); // Transações por hash
+    private final ConcurrentSkipListSet<Transaction> queue = new ConcurrentSkipListSet<>(PRIORITY); // Transações por prioridade
+    private final AtomicInteger size = new AtomicInteger(); // Quantidade de transações no mempool
+    private final int maxSize; // Limite de transações
+
+    Mempool(int maxSize) {
+        this.maxSize = Math.max(1, maxSize);
+    }
+
+    /*
+     * Adiciona uma transação ao mempool, descartando a de menor taxa se o limite for ultrapassado.
+     */
+    Status add(Transaction transaction) {
+        if (transaction == null || !transaction.prepare()) {
+            return Status.INVALID;
+        }
+        return offer(transaction);
+    }
+
+    private Status offer(Transaction transaction) {
+        int[] newSize = new int[1]; // Tamanho depois da inserção; 0 se a transação já estava no mempool
+        transactions.compute(transaction.getHash(), (hash, current) -> {
+            if (current != null) {
+                return current;
+            }
+            queue.add(transaction);
+            newSize[0] = size.incrementAndGet();
+            return transaction;
+        });
+        if (newSize[0] == 0) {
+            return Status.DUPLICATE;
+        }
+        if (newSize[0] > maxSize) {
+            Transaction evicted = evictLowest();
+            if (transaction.equals(evicted)) {
+                return Status.REJECTED;
+            }
+        }
+        return Status.ACCEPTED;
+    }
+
+    /*
+     * Remove a transação de menor taxa.
+     */
+    private Transaction evictLowest() {
+        Transaction lowest = queue.pollLast();
+        if (lowest != null) {
+            remove(lowest);
+        }
+        return lowest;
+    }
+
+    /*
+     * Remove a transação do mapa e do conjunto em um único passo para o seu hash.
+     * O contador só diminui para quem removeu a entrada do mapa, mesmo com remoções concorrentes.
+     */
+    private void remove(Transaction transaction) {
+        transactions.computeIfPresent(transaction.getHash(), (hash, current) -> {
+            queue.remove(current);
+            size.decrementAndGet();
+            return null;
+        });
+    }
+
+    /*
+     * Retorna, sem remover, até count transações em ordem de prioridade.
+     * Custa O(log n) para chegar ao início do conjunto e O(1) por transação seguinte.
+     * As transações só saem do mempool quando o bloco que as inclui entra na blockchain.
+     */
+    List<Transaction> select(int count) {
+        List<Transaction> selected = new ArrayList<>(Math.min(count, size.get()));
+        Iterator<Transaction> it = queue.iterator();
+        while (selected.size() < count && it.hasNext()) {
+            selected.add(it.next());
+        }
+        return selected;
+    }
+
+    /*
+     * Remove as transações incluídas em um bloco que entrou na blockchain: O(k log n) para k transações.
+     */
+    void removeAll(List<Transaction> included) {
+        for (Transaction transaction : included) {
+            remove(transaction);
+        }
+    }
+
+    /*
+     * Devolve ao mempool as transações de um bloco que saiu da blockchain em uma reorganização.
+     * Os dados do bloco vêm de um par: uma transação com campos inválidos ou cujo hash não corresponde
+     * aos campos é descartada. Retorna a quantidade de transações descartadas.
+     */
+    int restoreAll(List<Transaction> transactions) {
+        int dropped = 0;
+        for (Transaction transaction : transactions) {
+            String hash = transaction.getHash();
+            if (hash == null || !transaction.prepare() || !hash.equals(transaction.getHash())) {
+                dropped++;
+                continue;
+            }
+            offer(transaction);
+        }
+        return dropped;
+    }
+
+    /*
+     * Indica se a transação com o hash informado está no mempool.
+     */
+    boolean contains(String hash) {
+        return transactions.containsKey(hash);
+    }
+
+    /*
+     * Quantidade de transações no mempool.
+     */
+    int size() {
+        return size.get();
+    }
+}
@@ -0,0 +1,81 @@
+package com.blockchain.blockchain.agent;
+
+import java.util.List;
+
+/*
+ * Classe que representa a prova de inclusão de uma entrada (transação) em um bloco.
+ * Contém o cabeçalho do bloco, a entrada e os hashes irmãos até a raiz de Merkle:
+ * um cliente leve confere a entrada com log(n) hashes, sem baixar o bloco completo.
+ */
+public class MerkleProof {
+
+    private final Block header; // Cabeçalho do bloco (sem os dados), que contém a raiz de Merkle
+    private final String entry; // Entrada provada, como aparece no campo data do bloco
+    private final int position; // Posição da entrada no bloco
+    private final List<Step> path; // Hashes irmãos, da folha até a raiz
+
+    MerkleProof(Block header, String entry, int position, List<Step> path) {
+        this.header = header;
+        this.entry = entry;
+        this.position = position;
+        this.path = path;
+    }
+
+    /*
+     * Monta a prova de inclusão da transação com o hash informado, ou retorna null se ela não estiver no bloco.
+     */
+    static MerkleProof of(Block block, String transactionHash) {
+        List<String> entries = MerkleTree.entries(block.getData());
+        for (int position = 0; position < entries.size(); position++) {
+            String entry = entries.get(position);
+            if (entry.startsWith(transactionHash + ";")) {
+                return new MerkleProof(block.toHeader(), entry, position, MerkleTree.proof(block.getData(), position));
+            }
+        }
+        return null;
+    }
+
+    /*
+     * Confere se a entrada pertence ao bloco do cabeçalho.
+     */
+    public boolean verify() {
+        return header != null && MerkleTree.verify(entry, path, header.getMerkleRoot());
+    }
+
+    public Block getHeader() {
+        return header;
+    }
+
+    public String getEntry() {
+        return entry;
+    }
+
+    public int getPosition() {
+        return position;
+    }
+
+    public List<Step> getPath() {
+        return path;
+    }
+
+    /*
+     * Um passo da prova: o hash irmão e se ele fica à esquerda do hash calculado até aqui.
+     */
+    public static class Step {
+        private final String hash;
+        private final boolean left;
+
+        Step(String hash, boolean left) {
+            this.hash = hash;
+            this.left = left;
+        }
+
+        public String getHash() {
+            return hash;
+        }
+
+        public boolean isLeft() {
+            return left;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.blockchain.blockchain.agent;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/*
+ * Classe responsável pela árvore de Merkle das entradas de um bloco.
+ *
+ * Cada linha do campo data de um bloco é uma entrada (por exemplo, uma transação).
+ * As folhas são SHA-256(0x00 || entrada) e os nós internos SHA-256(0x01 || esquerdo || direito);
+ * os prefixos distinguem folhas de nós. Em um nível com quantidade ímpar de nós, o último nó
+ * sobe sem ser duplicado, de forma que duas listas de entradas diferentes nunca têm a mesma raiz.
+ *
+ * O cabeçalho minerado guarda apenas a raiz, e a inclusão de uma entrada pode ser provada
+ * com log(n) hashes, sem enviar o bloco completo.
+ */
+final class MerkleTree {
+
+    static final int PARALLEL_THRESHOLD = 1024; // Quantidade de nós a partir da qual um nível é calculado em paralelo
+    private static final byte LEAF_PREFIX = 0x00;
+    private static final byte NODE_PREFIX = 0x01;
+    private static final String ENTRY_SEPARATOR = "\n";
+
+    private MerkleTree() {
+    }
+
+    /*
+     * Separa o campo data de um bloco em entradas.
+     */
+    static List<String> entries(String data) {
+        if (data == null || data.isEmpty()) {
+            return List.of();
+        }
+        return Arrays.asList(data.split(ENTRY_SEPARATOR, -1));
+    }
+
+    /*
+     * Calcula a raiz de Merkle do campo data de um bloco, em hexadecimal, ou null se não houver entradas.
+     */
+    static String root(String data) {
+        List<String> entries = entries(data);
+        if (entries.isEmpty()) {
+            return null;
+        }
+        List<byte[]> level = leaves(entries);
+        while (level.size() > 1) {
+            level = parent(level);
+        }
+        return Utils.toHex(level.get(0));
+    }
+
+    /*
+     * Monta a prova de inclusão da entrada na posição informada: os hashes irmãos, da folha até a raiz.
+     */
+    static List<MerkleProof.Step> proof(String data, int position) {
+        List<String> entries = entries(data);
+        if (position < 0 || position >= entries.size()) {
+            return null;
+        }
+        List<MerkleProof.Step> path = new ArrayList<>();
+        List<byte[]> level = leaves(entries);
+        while (level.size() > 1) {
+            int sibling = position ^ 1;
+            if (sibling < level.size()) {
+                path.add(new MerkleProof.Step(Utils.toHex(level.get(sibling)), sibling < position));
+            }
+            level = parent(level);
+            position /= 2;
+        }
+        return path;
+    }
+
+    /*
+     * Confere uma prova de inclusão: recalcula a raiz a partir da entrada e dos hashes irmãos.
+     * Usa apenas log(n) hashes, sem precisar das demais entradas do bloco.
+     */
+    static boolean verify(String entry, List<MerkleProof.Step> path, String root) {
+        if (entry == null || path == null || root == null) {
+            return false;
+        }
+        MessageDigest digest = Utils.sha256();
+        byte[] hash = leaf(digest, entry);
+        for (MerkleProof.Step step : path) {
+            byte[] sibling = Utils.hashToBytes(step.getHash());
+            hash = step.isLeft() ? node(digest, sibling, hash) : node(digest, hash, sibling);
+        }
+        return root.equals(Utils.toHex(hash));
+    }
+
+    /*
+     * Calcula as folhas, em paralelo quando há muitas entradas.
+     */
+    private static List<byte[]> leaves(List<String> entries) {
+        byte[][] leaves = new byte[entries.size()][];
+        range(entries.size()).forEach(i -> leaves[i] = leaf(Utils.sha256(), entries.get(i)));
+        return Arrays.asList(leaves);
+    }
+
+    /*
+     * Calcula o nível acima do nível informado, em paralelo quando o nível é grande.
+     */
+    private static List<byte[]> parent(List<byte[]> level) {
+        byte[][] parent = new byte[(level.size() + 1) / 2][];
+        range(parent.length).forEach(i -> {
+            int left = i * 2;
+            parent[i] = left + 1 < level.size() ? node(Utils.sha256(), level.get(left), level.get(left + 1)) : level.get(left);
+        });
+        return Arrays.asList(parent);
+    }
+
+    private static IntStream range(int size) {
+        IntStream range = IntStream.range(0, size);
+        return size >= PARALLEL_THRESHOLD ? range.parallel() : range;
+    }
+
+    private static byte[] leaf(MessageDigest digest, String entry) {
+        digest.update(LEAF_PREFIX);
+        digest.update(entry.getBytes(StandardCharsets.UTF_8));
+        return digest.digest();
+    }
+
+    private static byte[] node(MessageDigest digest, byte[] left, byte[] right) {
+        digest.update(NODE_PREFIX);
+        digest.update(left);
+        digest.update(right);
+        return digest.digest();
+    }
+}
@@ -14,6 +14,9 @@ public class Message implements Serializable {
     int receiver;  // Destinatário da mensagem
     MESSAGE_TYPE type;  // Tipo da mensagem (enumeração)
     List<Block> blocks;  // Lista de blocos associados à mensagem
+    int height;  // Altura da ponta anunciada ou primeira altura do intervalo pedido/enviado
+    int count;  // Quantidade de blocos do intervalo pedido
+    String hash;  // Hash da ponta anunciada
 
     /*
      * Enumeração que define os tipos de mensagens suportados.
@@ -23,7 +26,12 @@ public class Message implements Serializable {
         READY,  // Pronto para comunicação
         INFO_NEW_BLOCK,  // Informação sobre novo bloco adicionado
         REQ_ALL_BLOCKS,  // Requisição de todos os blocos
-        RSP_ALL_BLOCKS  // Resposta com todos os blocos
+        RSP_ALL_BLOCKS,  // Resposta com todos os blocos
+        INFO_TIP,  // Anúncio da altura e do hash da ponta da blockchain
+        REQ_HEADERS,  // Requisição de cabeçalhos a partir de uma altura
+        RSP_HEADERS,  // Resposta com cabeçalhos (blocos sem dados)
+        REQ_BLOCKS,  // Requisição de um intervalo de blocos completos
+        RSP_BLOCKS  // Resposta com um intervalo de blocos completos
     }
 
     /*
@@ -31,7 +39,7 @@ public class Message implements Serializable {
      */
     @Override
     public String toString() {
-        return String.format("Message {type=%s, sender=%d, receiver=%d, blocks=%s}", type, sender, receiver, blocks);
+        return String.format("Message {type=%s, sender=%d, receiver=%d, height=%d, count=%d, blocks=%s}", type, sender, receiver, height, count, blocks);
     }
 
     /*
@@ -72,6 +80,30 @@ public class Message implements Serializable {
             return this;
         }
 
+        /*
+         * Define a altura anunciada ou a primeira altura do intervalo.
+         */
+        MessageBuilder withHeight(final int height) {
+            message.height = height;
+            return this;
+        }
+
+        /*
+         * Define a quantidade de blocos do intervalo pedido.
+         */
+        MessageBuilder withCount(final int count) {
+            message.count = count;
+            return this;
+        }
+
+        /*
+         * Define o hash da ponta anunciada.
+         */
+        MessageBuilder withHash(final String hash) {
+            message.hash = hash;
+            return this;
+        }
+
         /*
          * Constrói e retorna o objeto Message configurado.
          */
@@ -0,0 +1,443 @@
+package com.blockchain.blockchain.agent;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/*
+ * Classe responsável por converter mensagens em bytes e vice-versa,
+ * para serem enviadas em quadros (frames) pelo PeerTransport.
+ *
+ * O formato binário começa com um byte de versão e usa campos com tamanho prefixado,
+ * inteiros em varint e hashes em 32 bytes brutos. O formato antigo (serialização Java)
+ * pode ser usado no envio com -Dblockchain.wire.legacy=true e só é lido com essa propriedade
+ * ou com -Dblockchain.wire.legacy.read=true. Mesmo assim, a leitura aceita apenas as classes
+ * de uma mensagem, com limites de profundidade e de tamanho de arrays.
+ */
+final class MessageCodec {
+
+    static final byte VERSION = 5; // Versão atual do formato binário (2: altura, quantidade e hash da mensagem; 3: raiz de Merkle do bloco; 4: dificuldade do bloco; 5: campos do bloco raiz)
+    private static final byte JAVA_SERIALIZATION = (byte) 0xAC; // Primeiro byte de um stream de serialização Java
+
+    // Marcadores do campo de hash
+    private static final int HASH_NULL = 0;
+    private static final int HASH_RAW = 1; // 32 bytes brutos de um hash hexadecimal
+    private static final int HASH_TEXT = 2; // Texto com tamanho prefixado, para valores que não são hashes (nunca nos hashes de um bloco)
+
+    // Bits do campo de flags de um bloco
+    private static final int FLAG_GENESIS = 1;
+    private static final int FLAG_TIMESTAMP = 1 << 1;
+    private static final int FLAG_NONCE = 1 << 2;
+
+    // Menor bloco codificado: flags, índice, dificuldade, três hashes nulos e dois textos nulos
+    private static final int MIN_BLOCK_SIZE = 8;
+
+    private static final Message.MESSAGE_TYPE[] TYPES = Message.MESSAGE_TYPE.values();
+
+    // Classes e limites aceitos na leitura de um quadro em serialização Java; qualquer outra classe recusa o quadro
+    private static final ObjectInputFilter LEGACY_FILTER = ObjectInputFilter.Config.createFilter(
+            "maxdepth=8;maxarray=" + (PeerTransport.MAX_FRAME_SIZE / MIN_BLOCK_SIZE) + ";"
+                    + "com.blockchain.blockchain.agent.Message;com.blockchain.blockchain.agent.Message$MESSAGE_TYPE;"
+                    + "com.blockchain.blockchain.agent.Block;com.blockchain.blockchain.agent.Genesis;"
+                    + "java.util.ArrayList;java.lang.String;java.lang.Enum;java.lang.Number;java.lang.Integer;java.lang.Long;"
+                    + "java.lang.Object;!*"); // Object: tipo do array interno do ArrayList, limitado por maxarray
+
+    static boolean legacy = AgentConfig.legacyWireFormat(); // Usa a serialização Java no envio
+    static boolean legacyRead = AgentConfig.legacyWireRead(); // Aceita a serialização Java na leitura, mesmo sem usá-la no envio
+
+    private MessageCodec() {
+    }
+
+    /*
+     * Codifica uma mensagem em bytes.
+     */
+    static byte[] encode(Message message) throws IOException {
+        if (legacy) {
+            return encodeLegacy(message);
+        }
+        int blocks = message.blocks == null ? 0 : message.blocks.size();
+        Writer out = new Writer(16 + blocks * 96);
+        out.writeByte(VERSION);
+        out.writeByte(message.type == null ? -1 : message.type.ordinal());
+        out.writeVarInt(message.sender);
+        out.writeVarInt(message.receiver);
+        if (message.blocks == null) {
+            out.writeUnsignedVarInt(0);
+        } else {
+            out.writeUnsignedVarInt(message.blocks.size() + 1);
+            for (Block block : message.blocks) {
+                writeBlock(out, block);
+            }
+        }
+        out.writeUnsignedVarInt(message.height);
+        out.writeUnsignedVarInt(message.count);
+        writeHash(out, message.hash);
+        return out.toByteArray();
+    }
+
+    /*
+     * Decodifica uma mensagem a partir dos bytes de um quadro, em qualquer um dos formatos.
+     */
+    static Message decode(byte[] payload) throws IOException {
+        if (payload.length == 0) {
+            throw new IOException("Quadro vazio");
+        }
+        if (payload[0] == JAVA_SERIALIZATION) {
+            if (!legacy && !legacyRead) {
+                throw new IOException("Mensagem em serialização Java recusada (habilite com -Dblockchain.wire.legacy.read=true)");
+            }
+            return decodeLegacy(payload);
+        }
+        Reader in = new Reader(payload);
+        int version = in.readByte();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Versão de mensagem não suportada: " + version);
+        }
+        Message message = new Message();
+        int type = in.readByte();
+        if (type >= TYPES.length) {
+            throw new IOException("Tipo de mensagem desconhecido: " + type);
+        }
+        message.type = type < 0 ? null : TYPES[type];
+        message.sender = in.readVarInt();
+        message.receiver = in.readVarInt();
+        int blocks = in.readUnsignedVarInt();
+        if (blocks > 0) {
+            // A quantidade vem do par: não pode passar do que os bytes restantes conseguem conter,
+            // senão um quadro de poucos bytes reservaria uma lista enorme
+            int minBlockSize = version >= 5 ? MIN_BLOCK_SIZE : 1; // Até a versão 4, o bloco raiz ocupava só as flags
+            if (blocks < 0 || blocks - 1 > in.remaining() / minBlockSize) {
+                throw new IOException("Quantidade de blocos inválida: " + (blocks - 1));
+            }
+            message.blocks = new ArrayList<>(blocks - 1);
+            for (int i = 0; i < blocks - 1; i++) {
+                message.blocks.add(readBlock(in, version));
+            }
+        }
+        if (version >= 2) {
+            message.height = in.readUnsignedVarInt();
+            message.count = in.readUnsignedVarInt();
+            message.hash = readHash(in);
+        }
+        return message;
+    }
+
+    /*
+     * Codifica um único bloco, precedido pela versão do formato.
+     * Usado pelo registro em disco (BlockLog).
+     */
+    static byte[] encodeBlock(Block block) {
+        Writer out = new Writer(96);
+        out.writeByte(VERSION);
+        writeBlock(out, block);
+        return out.toByteArray();
+    }
+
+    /*
+     * Decodifica um único bloco codificado por encodeBlock.
+     */
+    static Block decodeBlock(byte[] bytes) throws IOException {
+        Reader in = new Reader(bytes);
+        int version = in.readByte();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Versão de bloco não suportada: " + version);
+        }
+        return readBlock(in, version);
+    }
+
+    private static void writeBlock(Writer out, Block block) {
+        int flags = (block instanceof Genesis ? FLAG_GENESIS : 0)
+                | (block.getTimestamp() != null ? FLAG_TIMESTAMP : 0)
+                | (block.getNonce() != null ? FLAG_NONCE : 0);
+        out.writeByte(flags);
+        out.writeUnsignedVarInt(block.getIndex());
+        if (block.getTimestamp() != null) {
+            out.writeVarLong(block.getTimestamp());
+        }
+        if (block.getNonce() != null) {
+            out.writeVarInt(block.getNonce());
+        }
+        out.writeUnsignedVarInt(block.getDifficulty());
+        writeHash(out, block.hashKey());
+        writeHash(out, block.previousHashKey());
+        writeHash(out, block.getMerkleRoot());
+        out.writeString(block.getCreator());
+        out.writeString(block.getData());
+    }
+
+    private static Block readBlock(Reader in, int version) throws IOException {
+        int flags = in.readByte();
+        boolean genesis = (flags & FLAG_GENESIS) != 0;
+        if (genesis && version < 5) {
+            return new Genesis(); // Até a versão 4, o bloco raiz era recriado com os valores padrão
+        }
+        // O bloco raiz traz os próprios campos: a dificuldade inicial e o timestamp variam entre redes
+        Block block = genesis ? new Genesis() : new Block();
+        block.setIndex(in.readUnsignedVarInt());
+        if ((flags & FLAG_TIMESTAMP) != 0) {
+            block.setTimestamp(in.readVarLong());
+        }
+        if ((flags & FLAG_NONCE) != 0) {
+            block.setNonce(in.readVarInt());
+        }
+        if (version >= 4) {
+            block.setDifficulty(in.readUnsignedVarInt());
+        }
+        block.setHashKey(readHashKey(in));
+        block.setPreviousHashKey(readHashKey(in));
+        if (version >= 3) {
+            block.setMerkleRoot(readHash(in));
+        }
+        block.setCreator(in.readString());
+        block.setData(in.readString());
+        return block;
+    }
+
+    /*
+     * Escreve um hash hexadecimal como 32 bytes brutos; outros valores são escritos como texto.
+     */
+    private static void writeHash(Writer out, String hash) {
+        if (hash == null) {
+            out.writeByte(HASH_NULL);
+        } else if (Hash32.isRaw(hash)) {
+            out.writeByte(HASH_RAW);
+            out.writeBytes(Utils.hashToBytes(hash));
+        } else {
+            out.writeByte(HASH_TEXT);
+            out.writeString(hash);
+        }
+    }
+
+    private static void writeHash(Writer out, Hash32 hash) {
+        if (hash == null) {
+            out.writeByte(HASH_NULL);
+        } else {
+            out.writeByte(HASH_RAW);
+            out.writeHash(hash);
+        }
+    }
+
+    /*
+     * Lê o hash de um bloco, que só pode ser nulo ou 32 bytes brutos.
+     */
+    private static Hash32 readHashKey(Reader in) throws IOException {
+        int kind = in.readByte();
+        switch (kind) {
+            case HASH_NULL:
+                return null;
+            case HASH_RAW:
+                return in.readHash();
+            default:
+                throw new IOException("Hash de bloco em formato inválido: " + kind);
+        }
+    }
+
+    private static String readHash(Reader in) throws IOException {
+        int kind = in.readByte();
+        switch (kind) {
+            case HASH_NULL:
+                return null;
+            case HASH_RAW:
+                return Utils.toHex(in.readBytes(Utils.HASH_SIZE));
+            case HASH_TEXT:
+                return in.readString();
+            default:
+                throw new IOException("Formato de hash desconhecido: " + kind);
+        }
+    }
+
+    private static byte[] encodeLegacy(Message message) throws IOException {
+        if (message.blocks != null && message.blocks.getClass() != ArrayList.class) {
+            // Listas imutáveis (List.of) têm outra forma serializada: os blocos vão em um ArrayList, aceito pelo LEGACY_FILTER
+            Message copy = new Message();
+            copy.sender = message.sender;
+            copy.receiver = message.receiver;
+            copy.type = message.type;
+            copy.blocks = new ArrayList<>(message.blocks);
+            copy.height = message.height;
+            copy.count = message.count;
+            copy.hash = message.hash;
+            message = copy;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(message);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Message decodeLegacy(byte[] payload) throws IOException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(payload))) {
+            in.setObjectInputFilter(LEGACY_FILTER);
+            Object object = in.readObject();
+            if (!(object instanceof Message)) {
+                throw new IOException("Quadro não contém uma mensagem: " + object);
+            }
+            return (Message) object;
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /*
+     * Buffer de escrita que cresce conforme necessário.
+     */
+    static final class Writer {
+        private byte[] buffer;
+        private int position;
+
+        Writer(int capacity) {
+            buffer = new byte[Math.max(16, capacity)];
+        }
+
+        private void ensure(int bytes) {
+            if (position + bytes > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + bytes));
+            }
+        }
+
+        void writeByte(int value) {
+            ensure(1);
+            buffer[position++] = (byte) value;
+        }
+
+        void writeBytes(byte[] bytes) {
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        void writeHash(Hash32 hash) {
+            ensure(Utils.HASH_SIZE);
+            hash.copyTo(buffer, position);
+            position += Utils.HASH_SIZE;
+        }
+
+        void writeUnsignedVarInt(int value) {
+            ensure(5);
+            while ((value & ~0x7F) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        void writeVarInt(int value) {
+            writeUnsignedVarInt((value << 1) ^ (value >> 31)); // Codificação zigzag para valores negativos
+        }
+
+        void writeVarLong(long value) {
+            ensure(10);
+            long zigzag = (value << 1) ^ (value >> 63);
+            while ((zigzag & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((zigzag & 0x7F) | 0x80);
+                zigzag >>>= 7;
+            }
+            buffer[position++] = (byte) zigzag;
+        }
+
+        /*
+         * Escreve um texto em UTF-8 com o tamanho + 1 na frente; 0 representa null.
+         */
+        void writeString(String value) {
+            if (value == null) {
+                writeUnsignedVarInt(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeUnsignedVarInt(bytes.length + 1);
+            writeBytes(bytes);
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+    }
+
+    /*
+     * Leitor sobre os bytes de um quadro, com verificação de limites.
+     */
+    static final class Reader {
+        private final byte[] buffer;
+        private int position;
+
+        Reader(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        private void require(int bytes) throws IOException {
+            if (bytes < 0 || position + bytes > buffer.length) {
+                throw new IOException("Mensagem truncada");
+            }
+        }
+
+        int remaining() {
+            return buffer.length - position;
+        }
+
+        int readByte() throws IOException {
+            require(1);
+            return buffer[position++];
+        }
+
+        byte[] readBytes(int length) throws IOException {
+            require(length);
+            byte[] bytes = Arrays.copyOfRange(buffer, position, position + length);
+            position += length;
+            return bytes;
+        }
+
+        Hash32 readHash() throws IOException {
+            require(Utils.HASH_SIZE);
+            Hash32 hash = Hash32.of(buffer, position);
+            position += Utils.HASH_SIZE;
+            return hash;
+        }
+
+        int readUnsignedVarInt() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                int b = readByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Varint inválido");
+        }
+
+        int readVarInt() throws IOException {
+            int zigzag = readUnsignedVarInt();
+            return (zigzag >>> 1) ^ -(zigzag & 1);
+        }
+
+        long readVarLong() throws IOException {
+            long zigzag = 0;
+            for (int shift = 0; shift < 70; shift += 7) {
+                int b = readByte();
+                zigzag |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return (zigzag >>> 1) ^ -(zigzag & 1);
+                }
+            }
+            throw new IOException("Varlong inválido");
+        }
+
+        String readString() throws IOException {
+            int length = readUnsignedVarInt();
+            if (length == 0) {
+                return null;
+            }
+            require(length - 1);
+            String value = new String(buffer, position, length - 1, StandardCharsets.UTF_8);
+            position += length - 1;
+            return value;
+        }
+    }
+}
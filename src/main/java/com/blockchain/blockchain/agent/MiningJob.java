@@ -0,0 +1,94 @@
+package com.blockchain.blockchain.agent;
+
+import java.util.concurrent.FutureTask;
+
+/*
+ * Classe que representa um trabalho de mineração cancelável sobre a ponta atual da blockchain.
+ * É um Future: cancelar o trabalho interrompe a prova de trabalho na próxima tentativa de nonce,
+ * sem esperar a mineração terminar.
+ */
+class MiningJob extends FutureTask<Block> {
+
+    private final Block block; // Bloco sendo minerado
+    private final ProofOfWork proofOfWork; // Prova de trabalho do bloco, usada para cancelar a busca
+    private final MiningStats stats; // Contadores do agente dono do trabalho
+
+    /*
+     * Cria um trabalho para minerar o bloco seguinte ao bloco informado, com a mesma dificuldade dele.
+     */
+    MiningJob(Block previousBlock, String creator, MiningStats stats) {
+        this(previousBlock, creator, null, previousBlock.getDifficulty(), stats);
+    }
+
+    /*
+     * Cria um trabalho para minerar o bloco seguinte ao bloco informado, com os dados informados e a mesma dificuldade dele.
+     */
+    MiningJob(Block previousBlock, String creator, String data, MiningStats stats) {
+        this(previousBlock, creator, data, previousBlock.getDifficulty(), stats);
+    }
+
+    /*
+     * Cria um trabalho para minerar o bloco seguinte ao bloco informado, com os dados e a dificuldade informados.
+     * Os dados precisam estar no bloco antes da prova de trabalho, que inclui a raiz de Merkle deles no cabeçalho minerado.
+     */
+    MiningJob(Block previousBlock, String creator, String data, int difficulty, MiningStats stats) {
+        this(nextBlock(previousBlock, creator, data, difficulty), stats);
+    }
+
+    private static Block nextBlock(Block previousBlock, String creator, String data, int difficulty) {
+        Block block = Block.unmined(previousBlock.getIndex() + 1, previousBlock.getHash(), creator, difficulty);
+        block.setTimestamp(Difficulty.nextTimestamp(previousBlock, block.getTimestamp()));
+        block.setData(data);
+        block.setMerkleRoot(MerkleTree.root(data));
+        return block;
+    }
+
+    private MiningJob(Block block, MiningStats stats) {
+        this(block, new ProofOfWork(block), stats);
+    }
+
+    private MiningJob(Block block, ProofOfWork proofOfWork, MiningStats stats) {
+        super(() -> block.mine(proofOfWork) ? block : null);
+        this.block = block;
+        this.proofOfWork = proofOfWork;
+        this.stats = stats;
+        stats.jobStarted();
+    }
+
+    /*
+     * Índice do bloco que está sendo minerado.
+     */
+    int getIndex() {
+        return block.getIndex();
+    }
+
+    /*
+     * Hash do bloco que o bloco minerado estende.
+     */
+    Hash32 previousHashKey() {
+        return block.previousHashKey();
+    }
+
+    /*
+     * Cancela o trabalho e a prova de trabalho em andamento.
+     */
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        proofOfWork.cancel();
+        return super.cancel(mayInterruptIfRunning);
+    }
+
+    /*
+     * Executa a mineração na thread atual e registra o resultado nos contadores.
+     * Quando o trabalho é cancelado, este método retorna assim que a busca de nonce para.
+     */
+    @Override
+    public void run() {
+        super.run();
+        if (isCancelled()) {
+            stats.jobCancelled(proofOfWork.getAttempts(), proofOfWork.getExpectedAttempts());
+        } else {
+            stats.jobMined(proofOfWork.getAttempts());
+        }
+    }
+}
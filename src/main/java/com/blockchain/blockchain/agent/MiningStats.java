@@ -0,0 +1,62 @@
+package com.blockchain.blockchain.agent;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Classe que acumula os contadores de mineração de um agente.
+ * Mostra quantos trabalhos foram cancelados por causa de um bloco concorrente
+ * e quanto trabalho de hash foi economizado com isso.
+ */
+public class MiningStats {
+
+    private final AtomicLong jobsStarted = new AtomicLong(); // Trabalhos de mineração iniciados
+    private final AtomicLong jobsMined = new AtomicLong(); // Trabalhos que encontraram um nonce válido
+    private final AtomicLong jobsCancelled = new AtomicLong(); // Trabalhos cancelados por mudança da ponta
+    private final AtomicLong hashesComputed = new AtomicLong(); // Hashes calculados em todos os trabalhos
+    private final AtomicLong hashesAbandoned = new AtomicLong(); // Hashes calculados em trabalhos cancelados
+    private final AtomicLong hashesSaved = new AtomicLong(); // Estimativa de hashes que deixaram de ser calculados
+
+    void jobStarted() {
+        jobsStarted.incrementAndGet();
+    }
+
+    void jobMined(long attempts) {
+        jobsMined.incrementAndGet();
+        hashesComputed.addAndGet(attempts);
+    }
+
+    /*
+     * Registra um trabalho cancelado. O trabalho economizado é estimado pela diferença entre
+     * a quantidade esperada de hashes para a dificuldade e os hashes já calculados.
+     */
+    void jobCancelled(long attempts, long expectedAttempts) {
+        jobsCancelled.incrementAndGet();
+        hashesComputed.addAndGet(attempts);
+        hashesAbandoned.addAndGet(attempts);
+        hashesSaved.addAndGet(Math.max(0, expectedAttempts - attempts));
+    }
+
+    public long getJobsStarted() {
+        return jobsStarted.get();
+    }
+
+    public long getJobsMined() {
+        return jobsMined.get();
+    }
+
+    public long getJobsCancelled() {
+        return jobsCancelled.get();
+    }
+
+    public long getHashesComputed() {
+        return hashesComputed.get();
+    }
+
+    public long getHashesAbandoned() {
+        return hashesAbandoned.get();
+    }
+
+    public long getHashesSaved() {
+        return hashesSaved.get();
+    }
+}
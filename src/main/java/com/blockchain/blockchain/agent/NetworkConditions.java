@@ -0,0 +1,19 @@
+package com.blockchain.blockchain.agent;
+
+/*
+ * Interface que descreve as condições da rede entre dois agentes.
+ *
+ * É consultada para cada mensagem recebida, antes do tratamento, e permite simular latência,
+ * perda de mensagens e partições entre agentes que rodam na mesma máquina. Fora de testes
+ * e simulações, a rede é a real (NONE).
+ */
+public interface NetworkConditions {
+
+    NetworkConditions NONE = (from, to) -> 0;
+
+    /*
+     * Atraso, em ms, da entrega de uma mensagem enviada pelo agente da porta from ao agente da porta to.
+     * Um valor negativo descarta a mensagem.
+     */
+    long delay(int from, int to);
+}
@@ -0,0 +1,89 @@
+package com.blockchain.blockchain.agent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+/*
+ * Classe que representa a lista de pares conhecidos por um agente.
+ *
+ * Cada agente mantém a própria lista: começa com os pares informados na criação e aprende
+ * os demais pelas mensagens recebidas. A lista é trocada por uma cópia a cada alteração,
+ * que é rara, de forma que a leitura e o sorteio de pares não usam bloqueio.
+ */
+final class PeerList {
+
+    private volatile List<Peer> peers = List.of(); // Pares conhecidos, em ordem de descoberta
+
+    /*
+     * Adiciona um par. Retorna false se ele já era conhecido.
+     */
+    synchronized boolean add(Peer peer) {
+        if (peers.contains(peer)) {
+            return false;
+        }
+        List<Peer> copy = new ArrayList<>(peers);
+        copy.add(peer);
+        peers = List.copyOf(copy);
+        return true;
+    }
+
+    synchronized boolean remove(Peer peer) {
+        if (!peers.contains(peer)) {
+            return false;
+        }
+        List<Peer> copy = new ArrayList<>(peers);
+        copy.remove(peer);
+        peers = List.copyOf(copy);
+        return true;
+    }
+
+    /*
+     * Retorna o par que escuta na porta informada, ou null se ele não for conhecido.
+     */
+    Peer find(int port) {
+        for (Peer peer : peers) {
+            if (peer.port() == port) {
+                return peer;
+            }
+        }
+        return null;
+    }
+
+    List<Peer> all() {
+        return peers;
+    }
+
+    int size() {
+        return peers.size();
+    }
+
+    /*
+     * Sorteia até count pares distintos entre os que atendem ao filtro.
+     */
+    List<Peer> sample(int count, Predicate<Peer> filter) {
+        List<Peer> candidates = new ArrayList<>();
+        for (Peer peer : peers) {
+            if (filter.test(peer)) {
+                candidates.add(peer);
+            }
+        }
+        // Fisher-Yates parcial: só as primeiras posições são embaralhadas
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int size = Math.min(count, candidates.size());
+        for (int i = 0; i < size; i++) {
+            int j = i + random.nextInt(candidates.size() - i);
+            Peer swap = candidates.get(i);
+            candidates.set(i, candidates.get(j));
+            candidates.set(j, swap);
+        }
+        return candidates.subList(0, size);
+    }
+
+    /*
+     * Endereço de um par.
+     */
+    record Peer(String host, int port) {
+    }
+}
@@ -0,0 +1,168 @@
+package com.blockchain.blockchain.agent;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * Classe que representa a fila de envio de uma conexão com um par.
+ *
+ * A fila é limitada: quando está cheia, o quadro novo é descartado e contado, em vez de
+ * acumular memória para um par lento. Um quadro substituível (o anúncio da ponta) ainda
+ * não enviado é trocado pelo mais novo no mesmo lugar da fila, já que só a ponta mais recente importa.
+ *
+ * Usa ReentrantLock em vez de synchronized: uma thread virtual esperando em take() libera a thread
+ * de plataforma que a executa, o que não acontece com wait() dentro de um bloco synchronized.
+ */
+final class PeerOutbox {
+
+    private final String peer; // Identificação do par, usada nos contadores
+    private final ArrayDeque<Frame> frames = new ArrayDeque<>(); // Quadros a escrever, em ordem
+    private final int capacity; // Quantidade máxima de quadros na fila
+    private final TransportStats stats;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition(); // Sinalizada quando um quadro chega ou a fila é fechada
+    private Frame replaceable; // Quadro substituível ainda não iniciado, se houver
+    private boolean closed;
+
+    PeerOutbox(int capacity, TransportStats stats) {
+        this("", capacity, stats);
+    }
+
+    PeerOutbox(String peer, int capacity, TransportStats stats) {
+        this.peer = peer;
+        this.capacity = Math.max(1, capacity);
+        this.stats = stats;
+    }
+
+    /*
+     * Enfileira um quadro. Retorna false se a fila estiver cheia ou fechada e o quadro foi descartado.
+     */
+    boolean offer(byte[] frame, boolean replace) {
+        lock.lock();
+        try {
+            if (closed) {
+                stats.dropped(1, false);
+                return false;
+            }
+            if (replace && replaceable != null) {
+                // O quadro antigo ainda não começou a ser escrito: ocupa o mesmo lugar com o conteúdo novo
+                replaceable.buffer = ByteBuffer.wrap(frame);
+                replaceable.queuedAt = System.nanoTime();
+                stats.coalesced();
+                return true;
+            }
+            if (frames.size() >= capacity) {
+                stats.dropped(1, false);
+                return false;
+            }
+            Frame queued = new Frame(ByteBuffer.wrap(frame));
+            frames.addLast(queued);
+            if (replace) {
+                replaceable = queued;
+            }
+            stats.enqueued();
+            notEmpty.signalAll();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /*
+     * Retorna o primeiro quadro sem removê-lo, ou null se a fila estiver vazia.
+     * O quadro deixa de ser substituível, pois pode ser escrito em partes.
+     */
+    ByteBuffer peek() {
+        lock.lock();
+        try {
+            Frame frame = frames.peekFirst();
+            if (frame == null) {
+                return null;
+            }
+            if (frame == replaceable) {
+                replaceable = null;
+            }
+            return frame.buffer;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /*
+     * Remove o primeiro quadro, depois de escrito por completo.
+     */
+    void remove() {
+        lock.lock();
+        try {
+            Frame frame = frames.pollFirst();
+            if (frame != null) {
+                stats.sent(peer, frame.buffer.capacity(), System.nanoTime() - frame.queuedAt);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /*
+     * Espera e retorna o próximo quadro, ou null se a fila for fechada.
+     */
+    ByteBuffer take() throws InterruptedException {
+        lock.lock();
+        try {
+            while (frames.isEmpty() && !closed) {
+                notEmpty.await();
+            }
+            return closed ? null : peek();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    boolean isEmpty() {
+        lock.lock();
+        try {
+            return frames.isEmpty();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int size() {
+        lock.lock();
+        try {
+            return frames.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /*
+     * Fecha a fila, descartando os quadros não enviados, e acorda quem espera em take().
+     */
+    void close() {
+        lock.lock();
+        try {
+            closed = true;
+            stats.dropped(frames.size(), true);
+            frames.clear();
+            replaceable = null;
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /*
+     * Quadro na fila; o conteúdo pode ser trocado enquanto o quadro não começou a ser escrito.
+     */
+    private static final class Frame {
+        private ByteBuffer buffer;
+        private long queuedAt = System.nanoTime(); // Instante em que o conteúdo atual entrou na fila
+
+        private Frame(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+    }
+}
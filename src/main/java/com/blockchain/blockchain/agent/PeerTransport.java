@@ -0,0 +1,684 @@
+package com.blockchain.blockchain.agent;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.blockchain.blockchain.agent.Message.MESSAGE_TYPE.INFO_TIP;
+
+/*
+ * Classe que representa a camada de transporte entre agentes.
+ * Mantém uma conexão TCP persistente por par, reutilizada por todos os tipos de mensagem,
+ * e atende todas as conexões de um agente em uma única thread com um Selector (event loop).
+ *
+ * Cada mensagem trafega em um quadro: 4 bytes com o tamanho seguidos do conteúdo codificado.
+ * As mensagens recebidas são entregues ao Handler no executor informado, em ordem por conexão.
+ *
+ * No modo de threads virtuais (-Dblockchain.threads.virtual=true), o Selector não é usado:
+ * cada conexão tem uma thread virtual de leitura, que chama o Handler em ordem, e uma de escrita,
+ * que conecta e envia os quadros com I/O bloqueante. Threads virtuais bloqueadas em sockets não
+ * ocupam threads do sistema operacional, o que permite centenas de agentes na mesma JVM.
+ *
+ * Em ambos os modos o envio nunca bloqueia quem envia: cada conexão tem uma fila limitada (PeerOutbox)
+ * em que um anúncio de ponta ainda não enviado é substituído pelo mais novo, e um par que recusa
+ * conexões fica em espera exponencial, sem receber quadros, até a próxima tentativa.
+ */
+class PeerTransport {
+
+    private static final Logger logger = LoggerFactory.getLogger(PeerTransport.class);
+
+    static final int MAX_FRAME_SIZE = AgentConfig.maxFrameBytes(); // Tamanho máximo aceito para um quadro
+    private static final int READ_BUFFER_SIZE = 64 * 1024; // Tamanho inicial do buffer de leitura; cresce conforme os bytes chegam
+    static final long BACKOFF_BASE = 100; // Espera, em ms, após a primeira falha de conexão com um par
+    static final long BACKOFF_MAX = 10_000; // Espera máxima, em ms, entre tentativas de conexão com um par
+    static final String INBOUND_PEER = "inbound"; // Par dos contadores de envio das conexões recebidas
+    static final long STOP_TIMEOUT = 5000; // Espera máxima, em ms, pelo encerramento do event loop em stop()
+
+    /*
+     * Interface para tratamento das mensagens recebidas.
+     */
+    interface Handler {
+        void onMessage(Connection connection, Message message);
+    }
+
+    private final int port; // Porta em que o servidor escuta
+    private final Handler handler; // Tratador das mensagens recebidas
+    private final Executor executor; // Executor em que o tratador é chamado
+    private final boolean virtualThreads; // Usa threads virtuais com I/O bloqueante em vez do Selector
+    private final TransportStats stats; // Contadores das filas de envio
+    private final int queueCapacity = AgentConfig.peerQueueSize(); // Quadros por fila de envio
+    private final Map<String, Backoff> backoffs = new ConcurrentHashMap<>(); // Pares inalcançáveis por "host:porta"
+    private final Map<String, Connection> peers = new ConcurrentHashMap<>(); // Conexões de saída por "host:porta"
+    private final Set<Connection> connections = ConcurrentHashMap.newKeySet(); // Conexões abertas, no modo de threads virtuais
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>(); // Tarefas a executar na thread do event loop
+    private Selector selector;
+    private ServerSocketChannel server;
+    private Thread thread; // Thread do event loop
+    private volatile boolean running;
+
+    PeerTransport(int port, Handler handler, Executor executor) {
+        this(port, handler, executor, false);
+    }
+
+    PeerTransport(int port, Handler handler, Executor executor, boolean virtualThreads) {
+        this(port, handler, executor, virtualThreads, new TransportStats());
+    }
+
+    PeerTransport(int port, Handler handler, Executor executor, boolean virtualThreads, TransportStats stats) {
+        this.port = port;
+        this.handler = handler;
+        this.executor = executor;
+        this.virtualThreads = virtualThreads;
+        this.stats = stats;
+    }
+
+    /*
+     * Retorna os contadores das filas de envio.
+     */
+    TransportStats getStats() {
+        return stats;
+    }
+
+    /*
+     * Abre a porta do servidor e inicia a thread do event loop
+     * (ou, no modo de threads virtuais, a thread virtual que aceita as conexões).
+     */
+    void start() throws IOException {
+        if (virtualThreads) {
+            server = ServerSocketChannel.open();
+            server.bind(new InetSocketAddress(port));
+            running = true;
+            Thread.ofVirtual().name("net-" + port).start(this::acceptLoop);
+            return;
+        }
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(port));
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+        running = true;
+
+        thread = new Thread(this::loop, "net-" + port);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /*
+     * Para o event loop e fecha todas as conexões.
+     * Só retorna depois que a porta do servidor foi liberada, para que outro agente possa escutar nela logo em seguida:
+     * no modo do Selector, o socket do servidor só é fechado de fato pela thread do event loop, que é aguardada.
+     */
+    void stop() {
+        running = false;
+        if (thread == null || virtualThreads) {
+            close();
+            return;
+        }
+        selector.wakeup();
+        if (thread != Thread.currentThread()) {
+            try {
+                thread.join(STOP_TIMEOUT);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (thread.isAlive()) {
+                logger.warn("Event loop da porta {} não encerrou em {} ms", port, STOP_TIMEOUT);
+            }
+        }
+    }
+
+    /*
+     * Codifica uma mensagem em um quadro pronto para envio.
+     * Um mesmo quadro pode ser enviado a vários pares sem ser codificado novamente.
+     */
+    static byte[] frame(Message message) throws IOException {
+        byte[] payload = MessageCodec.encode(message);
+        byte[] frame = new byte[Integer.BYTES + payload.length];
+        Utils.writeInt(frame, 0, payload.length);
+        System.arraycopy(payload, 0, frame, Integer.BYTES, payload.length);
+        return frame;
+    }
+
+    /*
+     * Indica se o quadro da mensagem pode ser substituído por um mais novo do mesmo tipo antes do envio.
+     */
+    static boolean isReplaceable(Message message) {
+        return message.type == INFO_TIP;
+    }
+
+    /*
+     * Envia uma mensagem ao par, abrindo a conexão persistente na primeira vez.
+     */
+    void send(String host, int port, Message message) throws IOException {
+        send(host, port, frame(message), isReplaceable(message));
+    }
+
+    /*
+     * Envia um quadro já codificado ao par, abrindo a conexão persistente na primeira vez.
+     */
+    void send(String host, int port, byte[] frame) throws IOException {
+        send(host, port, frame, false);
+    }
+
+    /*
+     * Envia um quadro já codificado ao par. O envio não bloqueia: o quadro é enfileirado na fila
+     * do par e escrito depois. Enquanto o par estiver em espera após falhas de conexão, o quadro é descartado.
+     */
+    void send(String host, int port, byte[] frame, boolean replace) throws IOException {
+        if (!running) {
+            throw new IOException("Transporte parado");
+        }
+        String key = host + ":" + port;
+        Backoff backoff = backoffs.get(key);
+        if (backoff != null && System.currentTimeMillis() < backoff.retryAt) {
+            stats.dropped(1, false);
+            return;
+        }
+        Connection connection = peers.get(key);
+        if (connection == null || !connection.isOpen()) {
+            connection = connect(key, host, port);
+        }
+        connection.send(frame, replace);
+    }
+
+    /*
+     * Indica se o par pode receber quadros, ou seja, se não está em espera após falhas de conexão.
+     */
+    boolean isReachable(String host, int port) {
+        Backoff backoff = backoffs.get(host + ":" + port);
+        return backoff == null || System.currentTimeMillis() >= backoff.retryAt;
+    }
+
+    /*
+     * Registra uma falha de conexão com o par e dobra a espera até a próxima tentativa.
+     */
+    private void connectFailed(String key) {
+        stats.connectFailed();
+        long now = System.currentTimeMillis();
+        backoffs.compute(key, (k, previous) -> {
+            int failures = previous == null ? 1 : previous.failures + 1;
+            return new Backoff(failures, now + Math.min(BACKOFF_MAX, BACKOFF_BASE << Math.min(failures - 1, 16)));
+        });
+    }
+
+    private void connected(String key) {
+        backoffs.remove(key);
+    }
+
+    private synchronized Connection connect(String key, String host, int port) throws IOException {
+        Connection connection = peers.get(key);
+        if (connection != null && connection.isOpen()) {
+            return connection;
+        }
+        if (virtualThreads) {
+            // A conexão é feita pela thread virtual de escrita, sem bloquear quem envia
+            StreamConnection created = new StreamConnection(SocketChannel.open(), key, false);
+            peers.put(key, created);
+            created.start(new InetSocketAddress(host, port));
+            return created;
+        }
+        SocketChannel channel = SocketChannel.open();
+        channel.configureBlocking(false);
+        channel.connect(new InetSocketAddress(host, port));
+        SelectorConnection created = new SelectorConnection(channel, key, false);
+        peers.put(key, created);
+        execute(() -> created.register(SelectionKey.OP_CONNECT));
+        return created;
+    }
+
+    /*
+     * Agenda uma tarefa para a thread do event loop.
+     */
+    private void execute(Runnable task) {
+        tasks.add(task);
+        selector.wakeup();
+    }
+
+    /*
+     * Laço principal: aceita conexões, conclui conexões de saída, lê e escreve quadros.
+     */
+    private void loop() {
+        try {
+            while (running) {
+                selector.select();
+                Runnable task;
+                while ((task = tasks.poll()) != null) {
+                    task.run();
+                }
+                for (SelectionKey key : selector.selectedKeys()) {
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        try {
+                            accept();
+                        } catch (IOException e) {
+                            logger.warn("{} não conseguiu aceitar uma conexão: {}", port, e.getMessage());
+                        }
+                        continue;
+                    }
+                    SelectorConnection connection = (SelectorConnection) key.attachment();
+                    try {
+                        if (key.isConnectable()) {
+                            connection.finishConnect();
+                        }
+                        if (key.isValid() && key.isReadable()) {
+                            connection.read();
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            connection.write();
+                        }
+                    } catch (IOException e) {
+                        logger.warn("{} não conseguiu I/O para a conexão com {}: {}", port, connection.name, e.getMessage());
+                        connection.close();
+                    }
+                }
+                selector.selectedKeys().clear();
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            if (running) {
+                logger.error("Event loop encerrado na porta {}: {}", port, e.getMessage());
+            }
+        } finally {
+            close();
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = server.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        new SelectorConnection(channel, String.valueOf(channel.getRemoteAddress()), true).register(SelectionKey.OP_READ);
+    }
+
+    /*
+     * Aceita conexões no modo de threads virtuais; cada conexão recebida ganha suas próprias threads virtuais.
+     */
+    private void acceptLoop() {
+        try {
+            while (running) {
+                SocketChannel channel = server.accept();
+                new StreamConnection(channel, String.valueOf(channel.getRemoteAddress()), true).start(null);
+            }
+        } catch (IOException e) {
+            if (running) {
+                logger.error("Servidor encerrado na porta {}: {}", port, e.getMessage());
+            }
+        } finally {
+            close();
+        }
+    }
+
+    private void close() {
+        running = false;
+        if (selector != null) {
+            for (SelectionKey key : selector.keys()) {
+                if (key.attachment() instanceof Connection connection) {
+                    connection.close();
+                }
+            }
+        }
+        for (Connection connection : connections) {
+            connection.close();
+        }
+        peers.clear();
+        try {
+            if (server != null) {
+                server.close();
+            }
+            if (selector != null) {
+                selector.close();
+            }
+        } catch (IOException e) {
+            logger.warn("{} não conseguiu fechar o servidor", port, e);
+        }
+    }
+
+    /*
+     * Classe que representa uma conexão persistente com outro agente.
+     */
+    abstract class Connection {
+        final String name; // Identificação do par, usada nos logs e no mapa de conexões
+        // Par nos contadores de envio: o endereço de escuta nas conexões de saída; as recebidas,
+        // identificadas por uma porta efêmera, são agrupadas para não criar uma série por conexão
+        final String peer;
+        volatile boolean open = true;
+
+        private Connection(String name, boolean inbound) {
+            this.name = name;
+            this.peer = inbound ? INBOUND_PEER : name;
+        }
+
+        boolean isOpen() {
+            return open;
+        }
+
+        /*
+         * Envia uma mensagem por esta conexão.
+         */
+        void send(Message message) throws IOException {
+            send(frame(message), isReplaceable(message));
+        }
+
+        abstract void send(byte[] frame, boolean replace);
+
+        abstract void close();
+
+        /*
+         * Decodifica um quadro recebido e o entrega ao tratador.
+         */
+        void handle(byte[] payload) {
+            stats.received(payload.length + Integer.BYTES);
+            try {
+                handler.onMessage(this, MessageCodec.decode(payload));
+            } catch (IOException e) {
+                logger.warn("{} recebeu uma mensagem inválida de {}: {}", port, name, e.getMessage());
+            } catch (RuntimeException e) {
+                logger.error("{} falhou ao tratar uma mensagem de {}", port, name, e);
+            }
+        }
+    }
+
+    /*
+     * Conexão atendida pelo event loop.
+     * Os quadros enviados ficam em uma fila até o event loop conseguir escrevê-los no socket.
+     */
+    private class SelectorConnection extends Connection {
+        private final SocketChannel channel;
+        private final PeerOutbox outbox = new PeerOutbox(peer, queueCapacity, stats); // Quadros a escrever
+        private final Queue<byte[]> inbox = new ConcurrentLinkedQueue<>(); // Quadros recebidos a tratar
+        private final AtomicBoolean draining = new AtomicBoolean(); // Indica se o inbox está sendo tratado
+        private ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        private SelectionKey key;
+
+        private SelectorConnection(SocketChannel channel, String name, boolean inbound) {
+            super(name, inbound);
+            this.channel = channel;
+        }
+
+        @Override
+        void send(byte[] frame, boolean replace) {
+            if (outbox.offer(frame, replace)) {
+                execute(this::enableWrite);
+            }
+        }
+
+        private void register(int ops) {
+            try {
+                key = channel.register(selector, ops, this);
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        private void enableWrite() {
+            if (key != null && key.isValid() && channel.isConnected()) {
+                key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+            }
+        }
+
+        private void finishConnect() throws IOException {
+            try {
+                channel.finishConnect();
+            } catch (IOException e) {
+                connectFailed(name);
+                throw e;
+            }
+            connected(name);
+            key.interestOps(SelectionKey.OP_READ | (outbox.isEmpty() ? 0 : SelectionKey.OP_WRITE));
+        }
+
+        /*
+         * Lê os bytes disponíveis e separa os quadros completos.
+         * O tamanho declarado no início do quadro não aloca memória: o buffer só dobra quando fica cheio,
+         * até o tamanho do quadro, e volta ao tamanho inicial quando os bytes pendentes cabem nele.
+         */
+        private void read() throws IOException {
+            if (channel.read(readBuffer) < 0) {
+                close();
+                return;
+            }
+            readBuffer.flip();
+            int needed = 0;
+            while (readBuffer.remaining() >= Integer.BYTES) {
+                int length = readBuffer.getInt(readBuffer.position());
+                if (length < 0 || length > MAX_FRAME_SIZE) {
+                    throw new IOException("Quadro inválido de tamanho " + length);
+                }
+                if (readBuffer.remaining() < Integer.BYTES + length) {
+                    needed = Integer.BYTES + length;
+                    break;
+                }
+                readBuffer.getInt();
+                byte[] payload = new byte[length];
+                readBuffer.get(payload);
+                deliver(payload);
+            }
+            readBuffer.compact();
+            if (needed > readBuffer.capacity() && !readBuffer.hasRemaining()) {
+                // Quadro maior que o buffer cheio: dobra o buffer mantendo os bytes já lidos
+                resize((int) Math.min(needed, 2L * readBuffer.capacity()));
+            } else if (readBuffer.capacity() > READ_BUFFER_SIZE && readBuffer.position() <= READ_BUFFER_SIZE
+                    && needed <= READ_BUFFER_SIZE) {
+                resize(READ_BUFFER_SIZE); // O quadro grande já foi entregue
+            }
+        }
+
+        private void resize(int capacity) {
+            ByteBuffer resized = ByteBuffer.allocate(capacity);
+            readBuffer.flip();
+            resized.put(readBuffer);
+            readBuffer = resized;
+        }
+
+        /*
+         * Escreve os quadros pendentes até o socket não aceitar mais bytes.
+         */
+        private void write() throws IOException {
+            ByteBuffer buffer;
+            while ((buffer = outbox.peek()) != null) {
+                channel.write(buffer);
+                if (buffer.hasRemaining()) {
+                    return;
+                }
+                outbox.remove();
+            }
+            key.interestOps(SelectionKey.OP_READ);
+        }
+
+        /*
+         * Entrega um quadro ao tratador, mantendo a ordem de chegada desta conexão.
+         */
+        private void deliver(byte[] payload) {
+            inbox.add(payload);
+            if (draining.compareAndSet(false, true)) {
+                executor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                byte[] payload;
+                while ((payload = inbox.poll()) != null) {
+                    handle(payload);
+                }
+                draining.set(false);
+                if (inbox.isEmpty() || !draining.compareAndSet(false, true)) {
+                    return;
+                }
+            }
+        }
+
+        @Override
+        void close() {
+            open = false;
+            peers.remove(name, this);
+            outbox.close();
+            if (key != null) {
+                key.cancel();
+            }
+            try {
+                channel.close();
+            } catch (IOException e) {
+                logger.debug("{} não conseguiu fechar a conexão com {}: {}", port, name, e.getMessage());
+            }
+        }
+    }
+
+    /*
+     * Conexão do modo de threads virtuais, com I/O bloqueante.
+     * A thread de leitura chama o tratador diretamente, o que já mantém a ordem da conexão,
+     * e a thread de escrita espera na fila de quadros sem ocupar uma thread do sistema operacional.
+     */
+    private class StreamConnection extends Connection {
+        private final SocketChannel channel;
+        private final PeerOutbox outbox = new PeerOutbox(peer, queueCapacity, stats); // Quadros a escrever
+
+        private StreamConnection(SocketChannel channel, String name, boolean inbound) {
+            super(name, inbound);
+            this.channel = channel;
+        }
+
+        /*
+         * Inicia as threads virtuais da conexão. Uma conexão de saída é estabelecida
+         * pela thread de escrita antes do primeiro quadro; uma conexão recebida já está conectada.
+         */
+        private void start(InetSocketAddress remote) {
+            connections.add(this);
+            Thread.ofVirtual().name("net-" + port + "-out-" + name).start(() -> writeLoop(remote));
+            if (remote == null) {
+                Thread.ofVirtual().name("net-" + port + "-in-" + name).start(this::readLoop);
+            }
+        }
+
+        @Override
+        void send(byte[] frame, boolean replace) {
+            outbox.offer(frame, replace);
+        }
+
+        private void writeLoop(InetSocketAddress remote) {
+            try {
+                if (remote != null) {
+                    try {
+                        channel.connect(remote);
+                    } catch (IOException e) {
+                        connectFailed(name);
+                        throw e;
+                    }
+                    connected(name);
+                    Thread.ofVirtual().name("net-" + port + "-in-" + name).start(this::readLoop);
+                }
+                ByteBuffer buffer;
+                while ((buffer = outbox.take()) != null) {
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                    outbox.remove();
+                }
+            } catch (IOException e) {
+                if (open) {
+                    logger.warn("{} não conseguiu I/O para a conexão com {}: {}", port, name, e.getMessage());
+                }
+                close();
+            } catch (InterruptedException e) {
+                close();
+            }
+        }
+
+        private void readLoop() {
+            ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+            try {
+                while (open) {
+                    length.clear();
+                    if (!readFully(length)) {
+                        break;
+                    }
+                    int size = length.getInt(0);
+                    if (size < 0 || size > MAX_FRAME_SIZE) {
+                        throw new IOException("Quadro inválido de tamanho " + size);
+                    }
+                    byte[] payload = readFrame(size);
+                    if (payload == null) {
+                        break;
+                    }
+                    handle(payload);
+                }
+            } catch (IOException e) {
+                if (open) {
+                    logger.warn("{} não conseguiu I/O para a conexão com {}: {}", port, name, e.getMessage());
+                }
+            }
+            close();
+        }
+
+        /*
+         * Lê o conteúdo de um quadro do tamanho informado, ou retorna null se a conexão terminar antes.
+         * O array começa com o tamanho do buffer de leitura e dobra conforme os bytes chegam,
+         * de forma que um tamanho declarado sem os bytes correspondentes não aloca o quadro inteiro.
+         */
+        private byte[] readFrame(int size) throws IOException {
+            byte[] payload = new byte[Math.min(size, READ_BUFFER_SIZE)];
+            int read = 0;
+            while (read < size) {
+                if (read == payload.length) {
+                    payload = Arrays.copyOf(payload, (int) Math.min(size, 2L * payload.length));
+                }
+                int count = channel.read(ByteBuffer.wrap(payload, read, payload.length - read));
+                if (count < 0) {
+                    return null;
+                }
+                read += count;
+            }
+            return payload;
+        }
+
+        private boolean readFully(ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        void close() {
+            if (!open) {
+                return;
+            }
+            open = false;
+            peers.remove(name, this);
+            connections.remove(this);
+            outbox.close();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                logger.debug("{} não conseguiu fechar a conexão com {}: {}", port, name, e.getMessage());
+            }
+        }
+    }
+
+    /*
+     * Estado de espera de um par inalcançável: falhas seguidas e o momento da próxima tentativa.
+     */
+    private record Backoff(int failures, long retryAt) {
+    }
+}
@@ -5,76 +5,236 @@ package com.blockchain.blockchain.agent;
  * Ela utiliza um algoritmo de prova de trabalho para encontrar um nonce que produza um hash
  * do bloco que satisfaça uma dificuldade pré-definida.
  */
-import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class ProofOfWork {
+    private static final int NONCE_SIZE = 4;  // Tamanho do nonce no cabeçalho, em bytes
+    static final int HEADER_SIZE = Utils.HASH_SIZE * 2 + Long.BYTES + Integer.BYTES + NONCE_SIZE;  // Tamanho fixo do cabeçalho: 80 bytes
+    private static final long MAX_NONCE = 0xFFFFFFFFL;  // Último nonce possível (32 bits sem sinal)
+    private static final long NOT_FOUND = Long.MAX_VALUE;  // Marca de que nenhum nonce válido foi encontrado
+    private static final long CANCELLED = -1L;  // Marca de mineração cancelada; menor que qualquer nonce
+
+    // Pool compartilhado de threads de mineração, criado na primeira busca paralela
+    private static final AtomicInteger workerCount = new AtomicInteger(0);
+    private static ThreadPoolExecutor workers;
+
     private Block mBlock;  // Bloco a ser minerado
-    private BigInteger mTarget;  // Alvo da mineração
-    public static int mDifficulty;  // Dificuldade da mineração
+    private final int mTargetBits;  // Alvo da mineração: quantidade de bits zero iniciais exigidos no hash
+    private final byte[] mHeader;  // Cabeçalho pré-alocado do bloco; o nonce ocupa os últimos 4 bytes
+    private final AtomicLong mBest = new AtomicLong(NOT_FOUND);  // Menor nonce válido encontrado até agora
+    private final AtomicLong mAttempts = new AtomicLong();  // Quantidade de hashes calculados
+    public static int mThreads = AgentConfig.miningThreads();  // Threads usadas na busca do nonce (1 = sequencial)
 
     /*
      * Construtor da classe ProofOfWork.
-     * Inicializa o bloco a ser minerado e calcula o alvo da mineração com base na dificuldade.
+     * Inicializa o bloco a ser minerado e calcula o alvo da mineração com base na dificuldade do bloco.
      */
     public ProofOfWork(Block mBlock){
         this.mBlock = mBlock;  // Inicializa o bloco a ser minerado
-        mTarget = BigInteger.ONE;  // Inicializa o alvo da mineração com 1
-        mTarget = mTarget.shiftLeft(256 - ProofOfWork.mDifficulty);  // Calcula o alvo da mineração com base na dificuldade.
-        // O alvo é calculado como 2^(256 - mDifficulty). Isso significa que o alvo é um número que tem 256 - mDifficulty bits 0 no início.
+        // O alvo equivale a 2^(256 - dificuldade): um hash abaixo dele tem tantos bits 0 no início quanto a dificuldade.
+        mTargetBits = targetBits(mBlock);
+        mHeader = prepareHeader(mBlock, mTargetBits);
+    }
+
+    /*
+     * Método privado que prepara o cabeçalho binário a ser minerado, de tamanho fixo (HEADER_SIZE).
+     * Concatena o hash do bloco anterior e a raiz de Merkle dos dados (32 bytes brutos cada), timestamp, alvo e o espaço do nonce.
+     * Os dados entram apenas pela raiz de Merkle, de forma que o custo de cada tentativa não depende do tamanho do bloco.
+     * O cabeçalho é montado uma única vez; a cada tentativa apenas o nonce é reescrito no lugar.
+     */
+    private static byte[] prepareHeader(Block block, int targetBits){
+        long timestamp = block.getTimestamp() == null ? 0L : block.getTimestamp();
+
+        byte[] bytes = new byte[HEADER_SIZE];
+        if (block.previousHashKey() != null) {
+            block.previousHashKey().copyTo(bytes, 0);  // Hash do bloco anterior; ausente, ocupa 32 bytes zero
+        }
+        ByteBuffer header = ByteBuffer.wrap(bytes, Utils.HASH_SIZE, HEADER_SIZE - Utils.HASH_SIZE);
+        header.put(hash32(block.getMerkleRoot()))  // Raiz de Merkle dos dados do bloco
+                .putLong(timestamp)  // Timestamp do bloco
+                .putInt(targetBits);  // Alvo da mineração
+        return bytes;  // Os últimos 4 bytes ficam reservados para o nonce
+    }
+
+    /*
+     * Converte a raiz de Merkle em 32 bytes brutos. Um valor ausente ocupa 32 bytes zero e
+     * um valor que não é um hash SHA-256 em hexadecimal é reduzido ao seu SHA-256.
+     */
+    private static byte[] hash32(String hash){
+        if (hash == null) {
+            return new byte[Utils.HASH_SIZE];
+        }
+        byte[] bytes = Utils.hashToBytes(hash);
+        return bytes.length == Utils.HASH_SIZE ? bytes : Utils.sha256().digest(bytes);
+    }
+
+    /*
+     * Confere a prova de trabalho de um bloco já minerado: recalcula o hash com o nonce do bloco
+     * e verifica se ele é igual ao hash informado e se atinge a dificuldade declarada no bloco.
+     * Se a dificuldade é a exigida pela blockchain é conferido pela árvore de blocos (Difficulty).
+     * Pode ser chamado por várias threads ao mesmo tempo; cada uma usa o próprio digest.
+     */
+    public static boolean verify(Block block){
+        if (block.getNonce() == null || block.hashKey() == null || block.previousHashKey() == null
+                || block.getDifficulty() < 0 || block.getDifficulty() > Difficulty.MAX) {
+            return false;
+        }
+        int targetBits = targetBits(block);
+        byte[] hash = new byte[Utils.HASH_SIZE];
+        hash(Utils.sha256(), prepareHeader(block, targetBits), block.getNonce(), hash);
+        return Utils.hasLeadingZeroBits(hash, targetBits) && Hash32.of(hash, 0).equals(block.hashKey());
+    }
+
+    private static int targetBits(Block block){
+        return Math.max(0, Math.min(Difficulty.MAX, block.getDifficulty()));
+    }
+
+    /*
+     * Calcula o hash do cabeçalho com o nonce informado, escrevendo o resultado em um buffer existente.
+     */
+    private static void hash(MessageDigest digest, byte[] header, int nonce, byte[] out){
+        Utils.writeInt(header, header.length - NONCE_SIZE, nonce);
+        digest.update(header);
+        Utils.digestInto(digest, out);
     }
 
     /*
-     * Método privado que prepara os dados para serem minerados.
-     * Concatena o hash do bloco anterior, dados do bloco, timestamp, alvo da mineração e nonce.
+     * Percorre os nonces start, start + step, start + 2 * step... até encontrar um hash válido
+     * ou até passar do melhor nonce já encontrado por outra thread.
+     * Como cada busca para no primeiro acerto e o menor acerto prevalece, o resultado é sempre
+     * o mesmo nonce encontrado pela mineração sequencial.
+     * O cancelamento também é observado pela mesma comparação, sem custo extra por tentativa.
      */
-    private String prepareData(int nonce){
-        String result = mBlock.getPreviousHash() +  // Concatena o hash do bloco anterior
-                mBlock.getData() +  // Concatena os dados do bloco
-                mBlock.getTimestamp() +  // Concatena o timestamp do bloco
-                Integer.toHexString(mTarget.intValue()) +  // Concatena o alvo da mineração em hexadecimal
-                Integer.toHexString(nonce);  // Concatena o nonce em hexadecimal
-        return result;
+    private void search(byte[] header, long start, int step){
+        MessageDigest digest = Utils.sha256();  // Digest reutilizado da thread atual
+        byte[] hash = new byte[Utils.HASH_SIZE];  // Buffer reutilizado em todas as tentativas
+        long attempts = 0;
+
+        // Nenhum objeto é criado por tentativa: o nonce é escrito no cabeçalho e o hash no mesmo buffer.
+        for (long nonce = start; nonce <= MAX_NONCE && nonce < mBest.get(); nonce += step) {
+            hash(digest, header, (int) nonce, hash);
+            attempts++;
+            if (Utils.hasLeadingZeroBits(hash, mTargetBits)) {  // Verifica se o hash é menor que o alvo da mineração
+                mBest.accumulateAndGet(nonce, Math::min);
+                break;
+            }
+        }
+        mAttempts.addAndGet(attempts);
     }
 
     /*
-     * Método que realiza a mineração do bloco.
+     * Cancela a mineração em andamento. Todas as threads de busca param na próxima tentativa
+     * e run() retorna null.
+     */
+    public void cancel(){
+        mBest.set(CANCELLED);
+    }
+
+    /*
+     * Indica se a mineração foi cancelada.
+     */
+    public boolean isCancelled(){
+        return mBest.get() == CANCELLED;
+    }
+
+    /*
+     * Retorna a quantidade de hashes calculados até o momento.
+     */
+    public long getAttempts(){
+        return mAttempts.get();
+    }
+
+    /*
+     * Retorna a quantidade esperada de hashes para encontrar um nonce válido (2^dificuldade).
+     */
+    public long getExpectedAttempts(){
+        return mTargetBits >= 63 ? Long.MAX_VALUE : 1L << mTargetBits;
+    }
+
+    /*
+     * Método que realiza a mineração do bloco com a quantidade de threads configurada em mThreads.
      * Retorna um mapa contendo o nonce e o hash do bloco minerado se a mineração for bem-sucedida,
      * caso contrário, retorna null.
      */
     public Map<String, String> run(){
-        String hash = "";  // Inicializa o hash do bloco como uma string vazia
-        int nonce = 0;  // Inicializa o nonce como 0
-
-        while (true) {  // Loop que incrementa o nonce até encontrar um hash que satisfaça a dificuldade da mineração
-            String data = prepareData(nonce);  // Prepara os dados para serem minerados
-            hash = Utils.hash256(data);  // Calcula o hash dos dados preparados usando o algoritmo SHA-256
-            BigInteger hashInt = new BigInteger(hash, 16);  // Converte o hash para um número inteiro em hexadecimal (base 16)
-
-            if (hashInt.compareTo(mTarget) == -1 ) {  // Verifica se o hash é menor que o alvo da mineração
-                break;  // Se o hash satisfaz a dificuldade da mineração, sai do loop
-            } else {
-                nonce++;  // Incrementa o nonce e tenta novamente
+        return run(mThreads);
+    }
+
+    /*
+     * Realiza a mineração dividindo o espaço de nonces entre a quantidade de threads informada.
+     * Com uma thread a busca é feita na thread atual, de forma sequencial.
+     * Retorna null se a mineração for cancelada.
+     */
+    public Map<String, String> run(int threads){
+        if (threads <= 1) {
+            search(mHeader, 0, 1);
+        } else {
+            // Cada thread recebe uma partição intercalada do espaço de nonces e uma cópia própria do cabeçalho
+            List<Callable<Void>> tasks = new ArrayList<>(threads);
+            for (int i = 0; i < threads; i++) {
+                final long start = i;
+                final byte[] header = mHeader.clone();
+                tasks.add(() -> {
+                    search(header, start, threads);
+                    return null;
+                });
+            }
+            try {
+                for (Future<Void> future : workers(threads).invokeAll(tasks)) {
+                    future.get();
+                }
+            } catch (InterruptedException e) {
+                cancel();
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Falha na mineração paralela", e.getCause());
             }
         }
 
-        // Prepara os dados para validação do bloco minerado
-        String validation = mBlock.getPreviousHash() +
-                mBlock.getTimestamp() +
-                Integer.toHexString(mTarget.intValue()) +
-                Integer.toHexString(nonce);
+        long best = mBest.get();
+        if (best == NOT_FOUND || best == CANCELLED) {
+            return null;  // Mineração cancelada ou todo o espaço de nonces percorrido sem sucesso
+        }
 
-        // Verifica se o hash calculado é igual ao hash encontrado
-        if (Utils.hash256(validation).equals(hash)){
-            // Se o hash calculado for igual ao hash encontrado, cria um mapa para armazenar os dados do bloco minerado
-            Map<String, String> map = new HashMap<>();
-            map.put("nonce", String.valueOf(nonce));  // Armazena o nonce como uma string no mapa
-            map.put("hash", hash);  // Armazena o hash do bloco minerado no mapa
+        int nonce = (int) best;
+        byte[] hash = new byte[Utils.HASH_SIZE];
+        hash(Utils.sha256(), mHeader, nonce, hash);
 
-            return map;  // Retorna o mapa com os dados do bloco minerado
-        } else {
-            return null;  // Se o hash calculado não for igual ao hash encontrado, retorna null
+        Map<String, String> map = new HashMap<>();
+        map.put("nonce", String.valueOf(nonce));  // Armazena o nonce como uma string no mapa
+        map.put("hash", Utils.toHex(hash));  // Armazena o hash do bloco minerado no mapa
+        return map;  // Retorna o mapa com os dados do bloco minerado
+    }
+
+    /*
+     * Retorna o pool de threads de mineração, criando-o na primeira utilização.
+     * O pool é compartilhado por todos os agentes e cresce apenas até a maior quantidade de threads pedida.
+     */
+    private static synchronized ThreadPoolExecutor workers(int threads){
+        if (workers == null) {
+            workers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+                Thread thread = new Thread(r, "pow-" + workerCount.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else if (workers.getMaximumPoolSize() < threads) {
+            workers.setMaximumPoolSize(threads);
+            workers.setCorePoolSize(threads);
         }
+        return workers;
     }
 }
@@ -0,0 +1,39 @@
+package com.blockchain.blockchain.agent;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+ * Classe que guarda os hashes dos blocos já vistos por um agente, para descartar cópias
+ * repetidas que chegam por caminhos diferentes da fofoca sem validá-las de novo.
+ * É limitada: ao atingir a capacidade, o hash visto há mais tempo é esquecido.
+ */
+final class SeenHashes {
+
+    private final Map<Hash32, Boolean> hashes; // Hashes em ordem de acesso, do mais antigo ao mais recente
+
+    SeenHashes(int capacity) {
+        int limit = Math.max(1, capacity);
+        this.hashes = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Hash32, Boolean> eldest) {
+                return size() > limit;
+            }
+        };
+    }
+
+    /*
+     * Marca o hash como visto. Retorna false se ele já tinha sido visto.
+     */
+    synchronized boolean add(Hash32 hash) {
+        return hashes.put(hash, Boolean.TRUE) == null;
+    }
+
+    synchronized boolean contains(Hash32 hash) {
+        return hashes.containsKey(hash);
+    }
+
+    synchronized int size() {
+        return hashes.size();
+    }
+}
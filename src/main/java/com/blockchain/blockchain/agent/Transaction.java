@@ -0,0 +1,184 @@
+package com.blockchain.blockchain.agent;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Classe que representa uma transação: uma transferência de um valor entre dois endereços,
+ * com uma taxa paga ao agente que incluir a transação em um bloco.
+ *
+ * As transações de um bloco ficam no campo data do bloco, uma por linha, de forma que
+ * já fazem parte do cabeçalho minerado e do formato binário sem mudanças nesses formatos.
+ */
+public class Transaction implements Serializable {
+
+    private static final long serialVersionUID = 1L; // Número de versão da classe
+    private static final char SEPARATOR = ';'; // Separador dos campos na representação em texto
+    private static final char LINE_SEPARATOR = '\n'; // Separador das transações no campo data do bloco
+
+    private String hash; // Hash da transação, calculado a partir dos demais campos
+    private String from; // Endereço de origem
+    private String to; // Endereço de destino
+    private long amount; // Valor transferido
+    private long fee; // Taxa paga a quem minerar o bloco; define a prioridade no mempool
+    private Long timestamp; // Momento da submissão
+
+    // Construtor vazio para uso com Jackson
+    public Transaction() {
+    }
+
+    public Transaction(String from, String to, long amount, long fee) {
+        this.from = from;
+        this.to = to;
+        this.amount = amount;
+        this.fee = fee;
+        this.timestamp = System.currentTimeMillis();
+        this.hash = calculateHash();
+    }
+
+    /*
+     * Completa os campos calculados de uma transação recebida (timestamp e hash)
+     * e indica se os campos informados são válidos.
+     */
+    boolean prepare() {
+        if (from == null || to == null || from.isEmpty() || to.isEmpty() || amount < 0 || fee < 0
+                || !isPlain(from) || !isPlain(to)) {
+            return false;
+        }
+        if (timestamp == null) {
+            timestamp = System.currentTimeMillis();
+        }
+        hash = calculateHash();
+        return true;
+    }
+
+    private String calculateHash() {
+        return Utils.hash256(from + SEPARATOR + to + SEPARATOR + amount + SEPARATOR + fee + SEPARATOR + timestamp);
+    }
+
+    /*
+     * Os endereços não podem conter os separadores da representação em texto.
+     */
+    private static boolean isPlain(String address) {
+        return address.indexOf(SEPARATOR) < 0 && address.indexOf(LINE_SEPARATOR) < 0;
+    }
+
+    /*
+     * Converte as transações no texto guardado no campo data de um bloco.
+     */
+    static String toData(List<Transaction> transactions) {
+        if (transactions.isEmpty()) {
+            return null;
+        }
+        StringBuilder data = new StringBuilder(transactions.size() * 128);
+        for (Transaction transaction : transactions) {
+            if (data.length() > 0) {
+                data.append(LINE_SEPARATOR);
+            }
+            data.append(transaction.hash).append(SEPARATOR)
+                    .append(transaction.from).append(SEPARATOR)
+                    .append(transaction.to).append(SEPARATOR)
+                    .append(transaction.amount).append(SEPARATOR)
+                    .append(transaction.fee).append(SEPARATOR)
+                    .append(transaction.timestamp);
+        }
+        return data.toString();
+    }
+
+    /*
+     * Lê as transações guardadas no campo data de um bloco.
+     * Linhas que não estão no formato de uma transação são ignoradas.
+     */
+    static List<Transaction> fromData(String data) {
+        List<Transaction> transactions = new ArrayList<>();
+        if (data == null || data.isEmpty()) {
+            return transactions;
+        }
+        for (String line : data.split(String.valueOf(LINE_SEPARATOR))) {
+            String[] fields = line.split(String.valueOf(SEPARATOR), -1);
+            if (fields.length != 6) {
+                continue;
+            }
+            try {
+                Transaction transaction = new Transaction();
+                transaction.hash = fields[0];
+                transaction.from = fields[1];
+                transaction.to = fields[2];
+                transaction.amount = Long.parseLong(fields[3]);
+                transaction.fee = Long.parseLong(fields[4]);
+                transaction.timestamp = Long.parseLong(fields[5]);
+                transactions.add(transaction);
+            } catch (NumberFormatException e) {
+                // Linha que não representa uma transação
+            }
+        }
+        return transactions;
+    }
+
+    // Getters e Setters
+
+    public String getHash() {
+        return hash;
+    }
+
+    public String getFrom() {
+        return from;
+    }
+
+    public void setFrom(String from) {
+        this.from = from;
+    }
+
+    public String getTo() {
+        return to;
+    }
+
+    public void setTo(String to) {
+        this.to = to;
+    }
+
+    public long getAmount() {
+        return amount;
+    }
+
+    public void setAmount(long amount) {
+        this.amount = amount;
+    }
+
+    public long getFee() {
+        return fee;
+    }
+
+    public void setFee(long fee) {
+        this.fee = fee;
+    }
+
+    public Long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(Long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return "Transaction{" +
+                "hash='" + hash + '\'' +
+                ", fee=" + fee +
+                '}';
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return hash != null && hash.equals(((Transaction) o).hash);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash == null ? 0 : hash.hashCode();
+    }
+}
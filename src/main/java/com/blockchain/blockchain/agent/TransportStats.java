@@ -0,0 +1,104 @@
+package com.blockchain.blockchain.agent;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Classe que acumula os contadores de envio de um agente.
+ * Mostra quantos quadros aguardam nas filas de envio dos pares e quantos foram
+ * enviados, substituídos por um quadro mais novo ou descartados.
+ */
+public class TransportStats {
+
+    private final AtomicLong queueDepth = new AtomicLong(); // Quadros aguardando envio, somando todos os pares
+    private final AtomicLong maxQueueDepth = new AtomicLong(); // Maior quantidade de quadros aguardando envio
+    private final AtomicLong framesSent = new AtomicLong(); // Quadros escritos por completo
+    private final AtomicLong framesCoalesced = new AtomicLong(); // Quadros substituídos por um mais novo antes do envio
+    private final AtomicLong framesDropped = new AtomicLong(); // Quadros descartados (fila cheia, par inalcançável ou conexão fechada)
+    private final AtomicLong connectFailures = new AtomicLong(); // Falhas ao conectar a um par
+    private final AtomicLong bytesSent = new AtomicLong(); // Bytes escritos, incluindo o prefixo de tamanho dos quadros
+    private final AtomicLong bytesReceived = new AtomicLong(); // Bytes lidos, incluindo o prefixo de tamanho dos quadros
+    private volatile SendListener sendListener; // Observador do tempo de envio de cada quadro, usado nas métricas
+
+    void enqueued() {
+        maxQueueDepth.accumulateAndGet(queueDepth.incrementAndGet(), Math::max);
+    }
+
+    /*
+     * Registra um quadro escrito por completo para o par informado, com o tempo desde que entrou na fila.
+     */
+    void sent(String peer, int bytes, long nanos) {
+        queueDepth.decrementAndGet();
+        framesSent.incrementAndGet();
+        bytesSent.addAndGet(bytes);
+        SendListener listener = sendListener;
+        if (listener != null) {
+            listener.onSent(peer, nanos);
+        }
+    }
+
+    void received(int bytes) {
+        bytesReceived.addAndGet(bytes);
+    }
+
+    void coalesced() {
+        framesCoalesced.incrementAndGet();
+    }
+
+    /*
+     * Registra quadros descartados; os que já estavam na fila deixam de contar na profundidade.
+     */
+    void dropped(int frames, boolean queued) {
+        if (queued) {
+            queueDepth.addAndGet(-frames);
+        }
+        framesDropped.addAndGet(frames);
+    }
+
+    void connectFailed() {
+        connectFailures.incrementAndGet();
+    }
+
+    public long getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    public long getMaxQueueDepth() {
+        return maxQueueDepth.get();
+    }
+
+    public long getFramesSent() {
+        return framesSent.get();
+    }
+
+    public long getFramesCoalesced() {
+        return framesCoalesced.get();
+    }
+
+    public long getFramesDropped() {
+        return framesDropped.get();
+    }
+
+    public long getConnectFailures() {
+        return connectFailures.get();
+    }
+
+    public long getBytesSent() {
+        return bytesSent.get();
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived.get();
+    }
+
+    void setSendListener(SendListener sendListener) {
+        this.sendListener = sendListener;
+    }
+
+    /*
+     * Observador do envio dos quadros: recebe o par e o tempo, em nanossegundos, entre
+     * o quadro entrar na fila e terminar de ser escrito.
+     */
+    interface SendListener {
+        void onSent(String peer, long nanos);
+    }
+}
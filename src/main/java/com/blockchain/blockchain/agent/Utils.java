@@ -1,11 +1,31 @@
+package com.blockchain.blockchain.agent;
+
 /*
  * Classe de utilidades para operações comuns no projeto blockchain.
  */
+import java.nio.charset.StandardCharsets;
+import java.security.DigestException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 
 public class Utils {
 
+    public static final int HASH_SIZE = 32; // Tamanho em bytes de um hash SHA-256
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray(); // Tabela de conversão para hexadecimal
+
+    /*
+     * Um MessageDigest por thread, reutilizado entre chamadas.
+     * Evita o custo de MessageDigest.getInstance a cada hash calculado.
+     */
+    private static final ThreadLocal<MessageDigest> DIGEST = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    });
+
     /*
      * Gera um hash SHA-256 de uma string.
      *
@@ -16,21 +36,101 @@ public class Utils {
         MessageDigest digest;  // Objeto para cálculo do hash
 
         try {
-            digest = MessageDigest.getInstance("SHA-256"); // Inicializa o objeto digest com o algoritmo SHA-256
-        } catch (NoSuchAlgorithmException e) {
+            digest = sha256(); // Obtém o digest SHA-256 da thread atual
+        } catch (IllegalStateException e) {
             return "HASH_ERROR"; // Retorna "HASH_ERROR" se o algoritmo não for encontrado
         }
 
-        final byte bytes[] = digest.digest(text.getBytes()); // Calcula o hash dos bytes do texto
-        final StringBuilder hexString = new StringBuilder(); // Inicializa uma string para armazenar o hash em hexadecimal
+        return toHex(digest.digest(text.getBytes())); // Retorna o hash SHA-256 como uma string em hexadecimal
+    }
+
+    /*
+     * Retorna o MessageDigest SHA-256 reutilizável da thread atual, já reiniciado.
+     */
+    public static MessageDigest sha256() {
+        MessageDigest digest = DIGEST.get();
+        digest.reset();
+        return digest;
+    }
+
+    /*
+     * Finaliza o digest escrevendo o resultado em um buffer já alocado, sem criar novos arrays.
+     */
+    public static void digestInto(MessageDigest digest, byte[] out) {
+        try {
+            digest.digest(out, 0, HASH_SIZE);
+        } catch (DigestException e) {
+            throw new IllegalStateException("Buffer de hash inválido", e);
+        }
+    }
+
+    /*
+     * Verifica se o hash possui pelo menos a quantidade de bits zero iniciais pedida.
+     * Equivale a comparar o hash como inteiro com o alvo 2^(256 - bits), olhando apenas os primeiros bytes.
+     */
+    public static boolean hasLeadingZeroBits(byte[] hash, int bits) {
+        int fullBytes = bits >>> 3;
+        for (int i = 0; i < fullBytes; i++) {
+            if (hash[i] != 0) {
+                return false;
+            }
+        }
+        int remaining = bits & 7;
+        return remaining == 0 || (hash[fullBytes] & 0xff) >>> (8 - remaining) == 0;
+    }
+
+    /*
+     * Converte bytes em uma string hexadecimal minúscula.
+     */
+    public static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >>> 4) & 0x0f];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0x0f];
+        }
+        return new String(chars);
+    }
 
-        for (final byte b : bytes) {
-            String hex = Integer.toHexString(0xff & b); // Converte o byte para um número inteiro em hexadecimal. 0xff é usado para converter o byte para um número positivo.
-            if (hex.length() == 1) {
-                hexString.append('0'); // Adiciona um zero à esquerda se o número for menor que 16
+    /*
+     * Converte um hash em hexadecimal para seus bytes brutos.
+     * Valores que não são hexadecimais válidos são convertidos a partir do texto em UTF-8.
+     */
+    public static byte[] hashToBytes(String hash) {
+        if (hash == null) {
+            return new byte[0];
+        }
+        if (!isHex(hash)) {
+            return hash.getBytes(StandardCharsets.UTF_8);
+        }
+        byte[] bytes = new byte[hash.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) ((Character.digit(hash.charAt(i * 2), 16) << 4) | Character.digit(hash.charAt(i * 2 + 1), 16));
+        }
+        return bytes;
+    }
+
+    /*
+     * Indica se a string é um valor hexadecimal de tamanho par.
+     */
+    public static boolean isHex(String text) {
+        if (text.isEmpty() || (text.length() & 1) != 0) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (Character.digit(text.charAt(i), 16) < 0) {
+                return false;
             }
-            hexString.append(hex); // Adiciona o número hexadecimal à string
         }
-        return hexString.toString(); // Retorna o hash SHA-256 como uma string em hexadecimal
+        return true;
+    }
+
+    /*
+     * Escreve um inteiro em big-endian na posição indicada do array.
+     */
+    public static void writeInt(byte[] buffer, int offset, int value) {
+        buffer[offset] = (byte) (value >>> 24);
+        buffer[offset + 1] = (byte) (value >>> 16);
+        buffer[offset + 2] = (byte) (value >>> 8);
+        buffer[offset + 3] = (byte) value;
     }
 }
@@ -4,23 +4,49 @@ package com.blockchain.blockchain.web;
 import com.blockchain.blockchain.agent.Agent;
 import com.blockchain.blockchain.agent.AgentManager;
 import com.blockchain.blockchain.agent.Block;
+import com.blockchain.blockchain.agent.BlockPage;
+import com.blockchain.blockchain.agent.ChainEvent;
+import com.blockchain.blockchain.agent.ChainEvents;
+import com.blockchain.blockchain.agent.MerkleProof;
+import com.blockchain.blockchain.agent.Transaction;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
 
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping(path="agent")
 public class AgentController {
 
+    private static final int STREAM_CHUNK = 256; // Blocos copiados da blockchain de cada vez no fluxo NDJSON
+
+    private static final long KEEP_ALIVE_SECONDS = 15; // Intervalo máximo sem escrita para um assinante de eventos
+
     private static AgentManager agentManager = new AgentManager();
 
+    private final ObjectMapper objectMapper; // Instância única configurada pelo Spring Boot
+
+    public AgentController(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
     @RequestMapping(method = RequestMethod.GET)
     public Agent getAgent(@RequestParam("name") String name) {
         return agentManager.getAgent(name);
@@ -33,22 +59,30 @@ public class AgentController {
 
     @RequestMapping(method = RequestMethod.POST, params = {"name", "port"})
     public Agent addAgent(@RequestParam("name") String name, @RequestParam("port") int port) {
-        return agentManager.addAgent(name, port);
+        Agent agent = agentManager.addAgent(name, port);
+        if (agent == null) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Já existe um agente com o nome " + name);
+        }
+        return agent;
     }
 
+    /*
+     * Retorna os agentes e apenas os blocos mais recentes do primeiro agente, para o painel.
+     * A blockchain completa é lida por páginas (blocks) ou em fluxo (blocks/stream).
+     */
     @RequestMapping(path = "all", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
-    public String getAllAgents() throws Exception {
-        List<Agent> agents =  agentManager.getAllAgents();
+    public Map<String, Object> getAllAgents(@RequestParam(value = "blocks", defaultValue = "100") final int count) {
+        List<Agent> agents = agentManager.getAllAgents();
         List<Block> blockChain = null;
         if (agents.size() > 0) {
-            blockChain = agents.get(0).getBlocks();
+            BlockPage page = agentManager.getLatestBlocks(agents.get(0).getName(), count);
+            blockChain = page == null ? List.of() : page.getBlocks();
         }
 
         Map<String, Object> results = new HashMap<>();
         results.put("agents", agents);
         results.put("blocks", blockChain);
-        ObjectMapper mapper = new ObjectMapper();
-        return mapper.writeValueAsString(results);
+        return results;
     }
 
     @RequestMapping(path = "all", method = RequestMethod.DELETE)
@@ -56,8 +90,136 @@ public class AgentController {
         agentManager.deleteAllAgents();
     }
 
+    @RequestMapping(method = RequestMethod.POST, path = "transaction")
+    public Map<String, String> submitTransaction(@RequestParam(value = "agent") final String name,
+                                                 @RequestBody Transaction transaction) {
+        String status = agentManager.submitTransaction(name, transaction);
+        Map<String, String> result = new HashMap<>();
+        result.put("hash", transaction.getHash());
+        result.put("status", status);
+        return result;
+    }
+
+    @RequestMapping(method = RequestMethod.GET, path = "proof")
+    public MerkleProof getProof(@RequestParam(value = "agent") final String name,
+                                @RequestParam(value = "height") final int height,
+                                @RequestParam(value = "transaction") final String transactionHash) {
+        return agentManager.getProof(name, height, transactionHash);
+    }
+
+    /*
+     * Retorna uma página de blocos do ramo principal de um agente, a partir da altura from.
+     */
+    @RequestMapping(method = RequestMethod.GET, path = "blocks", produces = MediaType.APPLICATION_JSON_VALUE)
+    public BlockPage getBlocks(@RequestParam(value = "agent") final String name,
+                               @RequestParam(value = "from", defaultValue = "0") final int from,
+                               @RequestParam(value = "count", defaultValue = "100") final int count) {
+        return found(agentManager.getBlocks(name, from, count), "Agente não encontrado: " + name);
+    }
+
+    @RequestMapping(method = RequestMethod.GET, path = "block", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Block getBlock(@RequestParam(value = "agent") final String name,
+                          @RequestParam(value = "hash") final String hash) {
+        return found(agentManager.getBlock(name, hash), "Bloco não encontrado: " + hash);
+    }
+
+    /*
+     * Escreve os blocos do ramo principal de um agente, das alturas from a to (por padrão, a ponta),
+     * um objeto JSON por linha. Os blocos são lidos da blockchain em páginas de STREAM_CHUNK e escritos
+     * à medida que são lidos, com memória constante. Se a blockchain for reorganizada durante o envio,
+     * o fluxo termina no último bloco que ainda se encadeia com os anteriores.
+     */
+    @RequestMapping(method = RequestMethod.GET, path = "blocks/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamBlocks(@RequestParam(value = "agent") final String name,
+                                              @RequestParam(value = "from", defaultValue = "0") final int from,
+                                              @RequestParam(value = "to", required = false) final Integer to) {
+        BlockPage first = found(agentManager.getBlocks(name, from, 0), "Agente não encontrado: " + name);
+        int last = to == null ? first.getHeight() : Math.min(to, first.getHeight());
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.setRootValueSeparator(null);
+                String previousHash = null;
+                for (int height = from; height <= last; ) {
+                    BlockPage page = agentManager.getBlocks(name, height, Math.min(STREAM_CHUNK, last - height + 1));
+                    if (page == null || page.getBlocks().isEmpty()) {
+                        return;
+                    }
+                    for (Block block : page.getBlocks()) {
+                        if (previousHash != null && !previousHash.equals(block.getPreviousHash())) {
+                            return;
+                        }
+                        generator.writeObject(block);
+                        generator.writeRaw('\n');
+                        previousHash = block.getHash();
+                    }
+                    generator.flush();
+                    height += page.getBlocks().size();
+                }
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    /*
+     * Envia por server-sent events os eventos da blockchain de um agente (ou de todos, sem o parâmetro agent):
+     * block (bloco incluído), reorg (reorganização) e tip (nova ponta).
+     * Cada assinante tem uma fila limitada, consumida por uma thread virtual própria; um assinante lento
+     * que deixa a fila encher recebe um evento overflow e é desconectado, sem atrasar a mineração.
+     */
+    @RequestMapping(method = RequestMethod.GET, path = "events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamEvents(@RequestParam(value = "agent", required = false) final String name) {
+        if (name != null) {
+            found(agentManager.getAgent(name), "Agente não encontrado: " + name);
+        }
+        SseEmitter emitter = new SseEmitter(0L);
+        ChainEvents.Subscription subscription = agentManager.subscribe(name);
+        emitter.onCompletion(subscription::close);
+        emitter.onTimeout(subscription::close);
+        emitter.onError(e -> subscription.close());
+        Thread.ofVirtual().name("events-" + (name == null ? "all" : name)).start(() -> forward(subscription, emitter));
+        return emitter;
+    }
+
     @RequestMapping(method = RequestMethod.POST, path = "mine")
     public Block createBlock(@RequestParam(value = "agent") final String name) {
         return agentManager.createBlock(name);
     }
+
+    private static <T> T found(T value, String message) {
+        if (value == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, message);
+        }
+        return value;
+    }
+
+    /*
+     * Repassa os eventos da assinatura ao cliente até ele desconectar ou a fila encher.
+     * Sem eventos, envia um comentário periódico, que também detecta clientes que saíram.
+     */
+    private static void forward(ChainEvents.Subscription subscription, SseEmitter emitter) {
+        long id = 0;
+        try (subscription) {
+            while (!subscription.isClosed()) {
+                ChainEvent event = subscription.poll(KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+                if (event != null) {
+                    emitter.send(SseEmitter.event()
+                            .id(Long.toString(id++))
+                            .name(event.getType().name().toLowerCase(Locale.ROOT))
+                            .data(event, MediaType.APPLICATION_JSON));
+                } else if (!subscription.isClosed()) {
+                    emitter.send(SseEmitter.event().comment("keep-alive"));
+                }
+            }
+            if (subscription.isOverflow()) {
+                emitter.send(SseEmitter.event().name("overflow").data("Eventos não consumidos a tempo"));
+            }
+            emitter.complete();
+        } catch (IOException | IllegalStateException e) {
+            emitter.completeWithError(e); // O cliente saiu ou a resposta já foi encerrada
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            emitter.complete();
+        }
+    }
 }
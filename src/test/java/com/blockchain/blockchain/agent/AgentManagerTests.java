@@ -0,0 +1,84 @@
+package com.blockchain.blockchain.agent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AgentManagerTests {
+
+    @Test
+    void indexesAgentsByNameAndHandsOutSnapshots() {
+        AgentManager manager = new AgentManager(new Genesis(4));
+        try {
+            Agent first = manager.addAgent("first", 18700);
+            Agent second = manager.addAgent("second", 18701);
+            assertNull(manager.addAgent("first", 18702));
+
+            List<Agent> snapshot = manager.getAllAgents();
+            assertSame(second, manager.getAgent("second"));
+            assertEquals(1, second.getPeerCount());
+
+            manager.deleteAgent("second");
+            assertNull(manager.getAgent("second"));
+            assertEquals(List.of(first, second), snapshot);
+            assertEquals(List.of(first), manager.getAllAgents());
+
+            first.learnPeer(18701);
+            manager.addAgent("second", 18701);
+            assertEquals(1, first.getPeerCount());
+            manager.deleteAgent("second");
+            assertEquals(0, first.getPeerCount());
+        } finally {
+            manager.deleteAllAgents();
+        }
+    }
+
+    @Test
+    void aRemovedPortIsLearnedAgainOnceItsMarkExpires() throws Exception {
+        System.setProperty("blockchain.peer.removed.ms", "200");
+        Agent agent;
+        try {
+            agent = new Agent("removed", "localhost", 18704, new Genesis(4), List.of());
+        } finally {
+            System.clearProperty("blockchain.peer.removed.ms");
+        }
+        try {
+            agent.addPeer(18705);
+            agent.forgetPeer(18705);
+            assertFalse(agent.learnPeer(18705)); // Mensagem ainda a caminho do par que saiu
+            assertEquals(0, agent.getPeerCount());
+
+            Thread.sleep(300);
+            assertTrue(agent.learnPeer(18705)); // Outro agente passou a escutar na porta sem passar pelo AgentManager
+            assertEquals(1, agent.getPeerCount());
+        } finally {
+            agent.stopHost();
+        }
+    }
+
+    @Test
+    void deletingAnAgentStopsItsOwnExecutorButNotTheSharedPools() throws Exception {
+        AgentManager manager = new AgentManager(new Genesis(4));
+        try {
+            Agent agent = manager.addAgent("executor", 18706);
+            agent.deliverLater(() -> { }, 0); // Cria as threads do executor do agente
+            manager.deleteAgent("executor");
+
+            if (AgentConfig.virtualThreads()) {
+                assertFalse(agent.getExecutor().isShutdown());
+            } else {
+                assertTrue(agent.getExecutor().awaitTermination(5, TimeUnit.SECONDS));
+            }
+            assertFalse(AgentExecutors.mining().isShutdown());
+        } finally {
+            manager.deleteAllAgents();
+        }
+    }
+}
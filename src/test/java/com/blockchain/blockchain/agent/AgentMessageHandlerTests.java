@@ -0,0 +1,28 @@
+package com.blockchain.blockchain.agent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static com.blockchain.blockchain.agent.Message.MESSAGE_TYPE.INFO_NEW_BLOCK;
+import static com.blockchain.blockchain.agent.Message.MESSAGE_TYPE.RSP_ALL_BLOCKS;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AgentMessageHandlerTests {
+
+    @Test
+    void blockMessagesWithoutBlocksAreIgnored() {
+        Agent agent = new Agent("handler", "localhost", 18730, new Genesis(4), List.of());
+        try {
+            AgentMessageHandler handler = new AgentMessageHandler(agent);
+            for (Message.MESSAGE_TYPE type : List.of(INFO_NEW_BLOCK, RSP_ALL_BLOCKS)) {
+                Message message = new Message.MessageBuilder().withType(type).withSender(18731).withReceiver(18730).build();
+                assertDoesNotThrow(() -> handler.onMessage(null, message), type.name());
+            }
+            assertEquals(1, agent.getBlocks().size());
+        } finally {
+            agent.stopHost();
+        }
+    }
+}
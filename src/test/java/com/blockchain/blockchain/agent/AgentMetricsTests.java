@@ -0,0 +1,57 @@
+package com.blockchain.blockchain.agent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AgentMetricsTests {
+
+    @Test
+    void publishesCountersTimersAndGaugesTaggedByAgent() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Agent agent = new Agent("metrics", "localhost", 18400, new Genesis(), List.of());
+        AgentMetrics metrics = new AgentMetrics(registry, agent);
+
+        metrics.block(BlockTree.Status.EXTENDED);
+        metrics.block(BlockTree.Status.ORPHAN);
+        metrics.rejected(AgentMetrics.Rejection.MISSING_HASH);
+        metrics.sent(Message.MESSAGE_TYPE.INFO_TIP);
+        metrics.received(Message.MESSAGE_TYPE.REQ_HEADERS);
+        metrics.mined(TimeUnit.MILLISECONDS.toNanos(20));
+
+        assertEquals(1, registry.get("blockchain.blocks.accepted").tags("agent", "metrics", "status", "extended").counter().count());
+        assertEquals(1, registry.get("blockchain.blocks.rejected").tag("reason", "unknown_parent").counter().count());
+        assertEquals(1, registry.get("blockchain.blocks.rejected").tag("reason", "missing_hash").counter().count());
+        assertEquals(1, registry.get("blockchain.messages.sent").tag("type", "INFO_TIP").counter().count());
+        assertEquals(1, registry.get("blockchain.messages.received").tag("type", "REQ_HEADERS").counter().count());
+        assertEquals(1, registry.get("blockchain.mining.time").timer().count());
+        assertEquals(0, registry.get("blockchain.chain.height").gauge().value());
+        assertEquals(0, registry.get("blockchain.sync.lag").gauge().value());
+
+        agent.getSync().onTip(18401, 5, "hash");
+        assertEquals(5, registry.get("blockchain.sync.lag").gauge().value());
+    }
+
+    @Test
+    void recordsBytesAndSendLatencyPerPeerAndRemovesMetersOnClose() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Agent agent = new Agent("metrics", "localhost", 18402, new Genesis(), List.of());
+        AgentMetrics metrics = new AgentMetrics(registry, agent);
+        PeerOutbox outbox = new PeerOutbox("localhost:18403", 8, agent.getTransportStats());
+
+        outbox.offer(new byte[16], false);
+        outbox.peek();
+        outbox.remove();
+
+        assertEquals(16, registry.get("blockchain.net.bytes").tag("direction", "sent").functionCounter().count());
+        assertEquals(1, registry.get("blockchain.net.send.latency").tag("peer", "localhost:18403").timer().count());
+
+        metrics.close();
+        assertTrue(registry.getMeters().isEmpty());
+    }
+}
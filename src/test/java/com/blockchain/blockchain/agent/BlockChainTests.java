@@ -0,0 +1,80 @@
+package com.blockchain.blockchain.agent;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BlockChainTests {
+
+    @Test
+    void bulkInsertSkipsKnownBlocksAndIndexesByHeightAndHash() {
+        List<Block> blocks = MessageCodecTests.chain(20);
+        BlockChain chain = new BlockChain(blocks.get(0));
+
+        chain.add(blocks.subList(0, 10));
+        chain.add(blocks);
+
+        assertEquals(20, chain.size());
+        assertSame(blocks.get(19), chain.getLatestBlock());
+        assertSame(blocks.get(7), chain.getBlock(7));
+        assertSame(blocks.get(7), chain.getBlock(blocks.get(7).getHash()));
+        assertTrue(chain.contains(blocks.get(3).getHash()));
+        assertFalse(chain.contains(Utils.hash256("unknown")));
+        assertNull(chain.getBlock(20));
+    }
+
+    @Test
+    void snapshotsStayUnchangedAcrossTruncationAndAppendsPastAChunk() {
+        List<Block> blocks = MessageCodecTests.chain(1100);
+        BlockChain chain = new BlockChain(blocks.get(0));
+        chain.add(blocks);
+
+        List<Block> before = chain.getBlocks();
+        List<Block> page = chain.getBlocks(1020, 10);
+        chain.truncate(1022);
+        Block replacement = MessageCodecTests.chain(1).get(0);
+        replacement.setIndex(1022);
+        replacement.setHash(Utils.hash256("replacement"));
+        chain.add(replacement);
+
+        assertEquals(blocks, before);
+        assertEquals(blocks.subList(1020, 1030), page);
+        assertEquals(1023, chain.size());
+        assertSame(replacement, chain.getLatestBlock());
+        assertSame(replacement, chain.getBlock(1022));
+        assertSame(blocks.get(1021), chain.getBlock(blocks.get(1021).getHash()));
+        assertNull(chain.getBlock(blocks.get(1022).getHash()));
+        assertEquals(blocks.subList(1020, 1022), chain.getBlocks(1020, 2));
+    }
+
+    @Test
+    void javaSerializationRebuildsTheIndexes() throws Exception {
+        List<Block> blocks = MessageCodecTests.chain(30);
+        BlockChain chain = new BlockChain(blocks.get(0));
+        chain.add(blocks);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(chain);
+        }
+        BlockChain copy;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            copy = (BlockChain) in.readObject();
+        }
+
+        assertEquals(blocks, copy.getBlocks());
+        assertEquals(blocks.get(12), copy.getBlock(blocks.get(12).getHash()));
+        copy.add(MessageCodecTests.chain(31).get(30));
+        assertEquals(31, copy.size());
+    }
+}
@@ -0,0 +1,86 @@
+package com.blockchain.blockchain.agent;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+class BlockLogTests {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void restartReadsBackEveryBlockAcrossSegments() throws Exception {
+        List<Block> blocks = MessageCodecTests.chain(200);
+        try (BlockLog log = new BlockLog(directory, 2048, BlockLog.FsyncPolicy.BATCH, 16)) {
+            for (Block block : blocks) {
+                log.append(block);
+            }
+        }
+
+        try (BlockLog log = new BlockLog(directory, 2048, BlockLog.FsyncPolicy.BATCH, 16)) {
+            assertEquals(200, log.size());
+            assertEquals(blocks, log.readAll());
+            assertEquals(blocks.get(150), log.read(150));
+        }
+        assertEquals(true, Files.exists(directory.resolve("00000005.log")));
+    }
+
+    @Test
+    void partialIndexEntryAndTruncatedBlocksAreDropped() throws Exception {
+        List<Block> blocks = MessageCodecTests.chain(30);
+        try (BlockLog log = new BlockLog(directory, 1024, BlockLog.FsyncPolicy.ALWAYS, 1)) {
+            for (Block block : blocks) {
+                log.append(block);
+            }
+            log.truncate(20);
+        }
+        Files.write(directory.resolve("blocks.idx"), new byte[7], StandardOpenOption.APPEND);
+
+        try (BlockLog log = new BlockLog(directory, 1024, BlockLog.FsyncPolicy.NEVER, 1)) {
+            assertEquals(blocks.subList(0, 20), log.readAll());
+            log.append(blocks.get(20));
+            assertEquals(blocks.get(20), log.read(20));
+        }
+    }
+
+    @Test
+    void blockChainIsRestoredFromLog() throws Exception {
+        List<Block> blocks = MessageCodecTests.chain(10);
+        BlockChain chain = new BlockChain(new Genesis(), new BlockLog(directory, 4096, BlockLog.FsyncPolicy.BATCH, 4));
+        chain.add(blocks.subList(1, 10));
+        chain.close();
+
+        BlockChain restored = new BlockChain(new Genesis(), new BlockLog(directory, 4096, BlockLog.FsyncPolicy.BATCH, 4));
+        assertEquals(10, restored.size());
+        assertInstanceOf(Genesis.class, restored.getBlock(0));
+        assertEquals(blocks.get(9), restored.getLatestBlock());
+        restored.close();
+
+        // Mesmo hash, outra dificuldade inicial: é outra rede, e a blockchain recomeça do bloco raiz
+        Genesis other = new Genesis(new Genesis().getDifficulty() + 1);
+        BlockChain restarted = new BlockChain(other, new BlockLog(directory, 4096, BlockLog.FsyncPolicy.BATCH, 4));
+        assertEquals(1, restarted.size());
+        assertEquals(other.getDifficulty(), restarted.getBlock(0).getDifficulty());
+        restarted.close();
+    }
+
+    @Test
+    void unknownFsyncPolicyFallsBackToBatch() {
+        System.setProperty("blockchain.store.fsync", "allways");
+        try {
+            assertEquals(BlockLog.FsyncPolicy.BATCH, AgentConfig.storeFsyncPolicy());
+            System.setProperty("blockchain.store.fsync", " Always ");
+            assertEquals(BlockLog.FsyncPolicy.ALWAYS, AgentConfig.storeFsyncPolicy());
+        } finally {
+            System.clearProperty("blockchain.store.fsync");
+        }
+    }
+}
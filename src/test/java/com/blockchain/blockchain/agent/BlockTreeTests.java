@@ -0,0 +1,120 @@
+package com.blockchain.blockchain.agent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BlockTreeTests {
+
+    @Test
+    void heavierSideBranchReorganizesOnlyDownToTheCommonAncestor() {
+        List<Block> main = MessageCodecTests.chain(10);
+        BlockTree tree = new BlockTree(main);
+
+        Block side1 = child(main.get(7), "side-1");
+        Block side2 = child(side1, "side-2");
+        Block side3 = child(side2, "side-3");
+
+        assertEquals(BlockTree.Status.SIDE_BRANCH, tree.add(side1).status());
+        assertEquals(BlockTree.Status.SIDE_BRANCH, tree.add(side2).status());
+        assertEquals(BlockTree.Status.DUPLICATE, tree.add(side2).status());
+
+        BlockTree.Result result = tree.add(side3);
+        assertEquals(BlockTree.Status.REORGANIZED, result.status());
+        assertEquals(List.of(main.get(9), main.get(8)), result.disconnected());
+        assertEquals(List.of(side1, side2, side3), result.connected());
+
+        assertEquals(BlockTree.Status.EXTENDED, tree.add(child(side3, "side-4")).status());
+        assertEquals(BlockTree.Status.SIDE_BRANCH, tree.add(child(main.get(9), "old-tip")).status());
+    }
+
+    @Test
+    void rejectsOrphansAndBlocksWithWrongIndex() {
+        List<Block> main = MessageCodecTests.chain(3);
+        BlockTree tree = new BlockTree(main);
+
+        Block orphan = child(child(main.get(2), "missing"), "orphan");
+        assertEquals(BlockTree.Status.ORPHAN, tree.add(orphan).status());
+
+        Block wrongIndex = child(main.get(2), "wrong");
+        wrongIndex.setIndex(7);
+        assertEquals(BlockTree.Status.INVALID, tree.add(wrongIndex).status());
+        assertFalse(tree.contains(wrongIndex.hashKey()));
+    }
+
+    @Test
+    void rejectsTimestampsNotAfterTheParentOrTooFarAhead() {
+        List<Block> main = MessageCodecTests.chain(3);
+        BlockTree tree = new BlockTree(main);
+
+        Block backdated = child(main.get(2), "backdated");
+        backdated.setTimestamp(main.get(2).getTimestamp());
+        assertEquals(BlockTree.Status.INVALID_TIMESTAMP, tree.add(backdated).status());
+
+        Block ahead = child(main.get(2), "ahead");
+        ahead.setTimestamp(System.currentTimeMillis() + AgentConfig.maxFutureDriftMillis() + 60_000);
+        assertEquals(BlockTree.Status.INVALID_TIMESTAMP, tree.add(ahead).status());
+        assertFalse(tree.contains(ahead.hashKey()));
+
+        assertEquals(BlockTree.Status.EXTENDED, tree.add(child(main.get(2), "honest")).status());
+    }
+
+    @Test
+    void retargetsDifficultyFromTheBranchTimestamps() {
+        int interval = AgentConfig.retargetInterval();
+        List<Block> main = MessageCodecTests.chain(1);
+        main.set(0, new Genesis(4));
+        BlockTree tree = new BlockTree(main);
+
+        // Blocos quatro vezes mais rápidos que o desejado: o ajuste sobe a dificuldade em 2 bits
+        Block tip = main.get(0);
+        for (int height = 1; height < 2 * interval; height++) {
+            Block block = child(tip, "fast-" + height);
+            block.setTimestamp(height * AgentConfig.blockIntervalMillis() / 4);
+            assertEquals(BlockTree.Status.EXTENDED, tree.add(block).status());
+            tip = block;
+        }
+        assertEquals(6, tree.nextDifficulty(tip.hashKey()));
+
+        Block unchanged = child(tip, "unchanged");
+        assertEquals(BlockTree.Status.INVALID, tree.add(unchanged).status());
+        Block retargeted = child(tip, "retargeted");
+        retargeted.setDifficulty(6);
+        assertEquals(BlockTree.Status.EXTENDED, tree.add(retargeted).status());
+        assertEquals(6, tree.nextDifficulty(retargeted.hashKey()));
+    }
+
+    @Test
+    void prunesStaleBranchesBelowTheWindow() {
+        List<Block> main = MessageCodecTests.chain(2);
+        BlockTree tree = new BlockTree(main);
+        Block stale = child(main.get(0), "stale");
+        tree.add(stale);
+
+        Block tip = main.get(1);
+        for (int i = 0; i < BlockTree.KEEP_DEPTH + BlockTree.PRUNE_INTERVAL; i++) {
+            tip = child(tip, "main-" + i);
+            assertEquals(BlockTree.Status.EXTENDED, tree.add(tip).status());
+        }
+
+        assertFalse(tree.contains(stale.hashKey()));
+        assertTrue(tree.contains(tip.hashKey()));
+        assertTrue(tree.size() <= BlockTree.KEEP_DEPTH + BlockTree.PRUNE_INTERVAL + 1);
+    }
+
+    private static Block child(Block parent, String tag) {
+        Block block = new Block();
+        block.setIndex(parent.getIndex() + 1);
+        block.setPreviousHash(parent.getHash());
+        block.setHash(Utils.hash256(tag + "-" + parent.getHash()));
+        block.setCreator(tag);
+        block.setDifficulty(parent.getDifficulty());
+        // Um intervalo igual ao desejado mantém a dificuldade nas alturas de ajuste
+        block.setTimestamp((parent.getTimestamp() == null ? 0 : parent.getTimestamp()) + AgentConfig.blockIntervalMillis());
+        return block;
+    }
+}
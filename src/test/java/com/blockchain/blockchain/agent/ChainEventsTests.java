@@ -0,0 +1,66 @@
+package com.blockchain.blockchain.agent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChainEventsTests {
+
+    @Test
+    void deliversOnlyTheSubscribedAgentsEventsInOrder() throws Exception {
+        ChainEvents events = new ChainEvents();
+        List<Block> chain = MessageCodecTests.chain(3);
+        ChainEvents.Subscription one = events.subscribe("one", 8);
+        ChainEvents.Subscription all = events.subscribe(null, 8);
+
+        events.publish(ChainEvent.block("one", chain.get(1), BlockTree.Status.EXTENDED));
+        events.publish(ChainEvent.tip("one", chain.get(1)));
+        events.publish(ChainEvent.tip("two", chain.get(2)));
+
+        ChainEvent block = one.poll(1, TimeUnit.SECONDS);
+        assertEquals(ChainEvent.Type.BLOCK, block.getType());
+        assertEquals("EXTENDED", block.getStatus());
+        assertEquals(chain.get(1), block.getBlock());
+        assertEquals(ChainEvent.Type.TIP, one.poll(1, TimeUnit.SECONDS).getType());
+        assertNull(one.poll(0, TimeUnit.SECONDS));
+        assertEquals("two", drain(all).get(2).getAgent());
+
+        one.close();
+        assertEquals(1, events.getSubscribers());
+    }
+
+    @Test
+    void disconnectsASlowSubscriberWithoutAffectingTheOthers() throws Exception {
+        ChainEvents events = new ChainEvents();
+        Block tip = MessageCodecTests.chain(1).get(0);
+        ChainEvents.Subscription slow = events.subscribe(null, 2);
+        ChainEvents.Subscription fast = events.subscribe(null, 2);
+
+        for (int i = 0; i < 5; i++) {
+            events.publish(ChainEvent.tip("one", tip));
+            assertEquals(ChainEvent.Type.TIP, fast.poll(0, TimeUnit.SECONDS).getType());
+        }
+
+        assertTrue(slow.isClosed());
+        assertTrue(slow.isOverflow());
+        assertNull(slow.poll(0, TimeUnit.SECONDS));
+        assertFalse(fast.isClosed());
+        assertEquals(1, events.getOverflowed());
+        assertEquals(1, events.getSubscribers());
+    }
+
+    private static List<ChainEvent> drain(ChainEvents.Subscription subscription) throws InterruptedException {
+        List<ChainEvent> drained = new ArrayList<>();
+        for (ChainEvent event; (event = subscription.poll(0, TimeUnit.SECONDS)) != null; ) {
+            drained.add(event);
+        }
+        return drained;
+    }
+}
@@ -0,0 +1,50 @@
+package com.blockchain.blockchain.agent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChainSyncTests {
+
+    @Test
+    void tipOfADeletedPeerNoLongerHoldsBackMining() throws Exception {
+        Agent agent = new Agent("sync", "localhost", 18720, new Genesis(4), List.of());
+        try {
+            agent.addPeer(18721);
+            agent.getSync().onTip(18721, 1_000, Utils.hash256("tip"));
+            assertTrue(agent.getSync().isBehind());
+
+            agent.startMine();
+            Thread.sleep(300);
+            assertEquals(0, agent.getLatestBlock().getIndex()); // Espera a sincronização em vez de minerar
+
+            agent.forgetPeer(18721);
+            assertFalse(agent.getSync().isBehind());
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (agent.getLatestBlock().getIndex() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertTrue(agent.getLatestBlock().getIndex() > 0);
+        } finally {
+            agent.stopHost();
+        }
+    }
+
+    @Test
+    void tipIsForgottenWhenThePeerHasNoHeadersForIt() {
+        Agent agent = new Agent("sync", "localhost", 18722, new Genesis(4), List.of());
+        try {
+            agent.getSync().onTip(18723, 1_000, Utils.hash256("tip"));
+            assertTrue(agent.getSync().isBehind());
+
+            agent.getSync().onHeaders(18723, 1, List.of());
+            assertFalse(agent.getSync().isBehind());
+        } finally {
+            agent.stopHost();
+        }
+    }
+}
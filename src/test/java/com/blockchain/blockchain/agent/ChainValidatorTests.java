@@ -0,0 +1,62 @@
+package com.blockchain.blockchain.agent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ChainValidatorTests {
+
+    @Test
+    void acceptsMinedChainAndReportsFirstTamperedHeight() {
+        List<Block> chain = minedChain(new Genesis(4), 600);
+        assertEquals(ChainValidator.VALID, ChainValidator.validate(null, chain));
+
+        chain.get(450).setNonce(chain.get(450).getNonce() + 1);
+        chain.get(417).setData("tampered");
+        assertEquals(417, ChainValidator.validate(null, chain));
+    }
+
+    @Test
+    void reportsBrokenLinkageEvenWhenProofOfWorkIsValid() {
+        List<Block> chain = minedChain(new Genesis(4), 400);
+        MiningJob job = new MiningJob(chain.get(299), "fork", "fork", new MiningStats());
+        job.run();
+        Block fork = job.resultNow();
+        chain.set(300, fork); // Bloco 300 concorrente: o bloco 301 deixa de se encadear
+
+        assertEquals(301, ChainValidator.validate(null, chain));
+        assertEquals(ChainValidator.VALID, ChainValidator.validate(chain.get(99), chain.subList(100, 301)));
+        assertEquals(100, ChainValidator.validate(chain.get(98), chain.subList(100, 301)));
+    }
+
+    @Test
+    void reportsTimestampsThatGoBackwardsOrTooFarAhead() {
+        List<Block> chain = minedChain(new Genesis(4), 40);
+        assertEquals(ChainValidator.VALID, ChainValidator.validate(null, chain));
+
+        MiningJob job = new MiningJob(chain.get(19), "backdated", new MiningStats());
+        job.run();
+        Block backdated = job.resultNow();
+        backdated.setTimestamp(chain.get(19).getTimestamp() - 1);
+        backdated.mine(new ProofOfWork(backdated)); // Prova de trabalho válida para o timestamp alterado
+        assertEquals(20, ChainValidator.validate(chain.get(19), List.of(backdated)));
+
+        backdated.setTimestamp(System.currentTimeMillis() + AgentConfig.maxFutureDriftMillis() + 60_000);
+        backdated.mine(new ProofOfWork(backdated));
+        assertEquals(20, ChainValidator.validate(chain.get(19), List.of(backdated)));
+    }
+
+    private static List<Block> minedChain(Block root, int size) {
+        List<Block> blocks = new ArrayList<>(size);
+        blocks.add(root);
+        while (blocks.size() < size) {
+            MiningJob job = new MiningJob(blocks.get(blocks.size() - 1), "validator", new MiningStats());
+            job.run();
+            blocks.add(job.resultNow());
+        }
+        return blocks;
+    }
+}
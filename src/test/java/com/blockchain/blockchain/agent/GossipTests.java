@@ -0,0 +1,44 @@
+package com.blockchain.blockchain.agent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GossipTests {
+
+    @Test
+    void sampleReturnsDistinctPeersThatPassTheFilter() {
+        PeerList peers = new PeerList();
+        for (int port = 1; port <= 50; port++) {
+            assertTrue(peers.add(new PeerList.Peer("localhost", port)));
+        }
+        assertFalse(peers.add(new PeerList.Peer("localhost", 7)));
+
+        for (int round = 0; round < 100; round++) {
+            List<PeerList.Peer> sample = peers.sample(6, peer -> peer.port() % 2 == 0);
+            assertEquals(6, sample.size());
+            assertEquals(6, new HashSet<>(sample).size());
+            assertTrue(sample.stream().allMatch(peer -> peer.port() % 2 == 0));
+        }
+        assertEquals(25, peers.sample(100, peer -> peer.port() % 2 == 0).size());
+    }
+
+    @Test
+    void seenHashesForgetsTheLeastRecentlyUsedHash() {
+        SeenHashes seen = new SeenHashes(2);
+
+        assertTrue(seen.add(Hash32.of(Utils.hash256("a"))));
+        assertTrue(seen.add(Hash32.of(Utils.hash256("b"))));
+        assertFalse(seen.add(Hash32.of(Utils.hash256("a"))));
+        assertTrue(seen.add(Hash32.of(Utils.hash256("c"))));
+
+        assertEquals(2, seen.size());
+        assertTrue(seen.contains(Hash32.of(Utils.hash256("a"))));
+        assertFalse(seen.contains(Hash32.of(Utils.hash256("b"))));
+    }
+}
@@ -0,0 +1,50 @@
+package com.blockchain.blockchain.agent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class Hash32Tests {
+
+    @Test
+    void keysMatchTheRawBytesOfHexHashes() {
+        String hex = Utils.hash256("block");
+        Hash32 key = Hash32.of(hex);
+
+        assertEquals(key, Hash32.of(Utils.hashToBytes(hex), 0));
+        assertEquals(key.hashCode(), Hash32.of(new String(hex)).hashCode());
+        assertEquals(hex, key.toString());
+        assertArrayEquals(Utils.hashToBytes(hex), key.toBytes());
+    }
+
+    @Test
+    void textsThatAreNotLowercaseHexHashesAreRejected() {
+        String hex = Utils.hash256("block");
+
+        assertThrows(IllegalArgumentException.class, () -> Hash32.of("a"));
+        assertThrows(IllegalArgumentException.class, () -> Hash32.of(hex.toUpperCase()));
+        assertThrows(IllegalArgumentException.class, () -> new Block().setHash(hex + "0"));
+        assertNull(Hash32.parse("a"));
+        assertNull(Hash32.parse(hex.toUpperCase()));
+        assertEquals(Hash32.of(hex), Hash32.parse(hex));
+    }
+
+    @Test
+    void childBlocksShareTheirParentsHashOnceInTheTree() {
+        List<Block> chain = MessageCodecTests.chain(2);
+        Block child = chain.get(1);
+        child.setPreviousHash(chain.get(0).getHash());
+
+        new BlockTree(chain);
+
+        assertSame(chain.get(0).hashKey(), child.previousHashKey());
+        assertEquals(chain.get(0).getHash(), child.getPreviousHash());
+        assertEquals(child.hashKey().hashCode(), child.hashCode());
+    }
+}
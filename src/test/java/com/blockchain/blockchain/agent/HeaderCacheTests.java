@@ -0,0 +1,61 @@
+package com.blockchain.blockchain.agent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HeaderCacheTests {
+
+    @Test
+    void copiesEachHeaderOnceAndEvictsTheLeastRecentlyUsed() {
+        List<Block> chain = MessageCodecTests.chain(4);
+        HeaderCache cache = new HeaderCache(2);
+
+        Block first = cache.header(chain.get(1));
+        assertNull(first.getData());
+        assertEquals(chain.get(1).getHash(), first.getHash());
+        assertSame(first, cache.header(chain.get(1)));
+        assertSame(chain.get(0), cache.header(chain.get(0))); // Sem dados, o bloco já é o cabeçalho
+
+        cache.header(chain.get(2));
+        cache.header(chain.get(1));
+        cache.header(chain.get(3));
+
+        assertEquals(2, cache.size());
+        assertSame(first, cache.header(chain.get(1)));
+        cache.header(chain.get(2)); // Descartado quando o bloco 3 entrou: copiado de novo
+        assertEquals(3, cache.getHits());
+        assertEquals(4, cache.getMisses());
+    }
+
+    @Test
+    void segmentsStayWithinTheCapacityUnderConcurrentRequests() throws Exception {
+        List<Block> chain = MessageCodecTests.chain(2_000);
+        HeaderCache cache = new HeaderCache(1_024);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (int round = 0; round < 3; round++) {
+                    for (int i = 1; i < chain.size(); i++) {
+                        assertEquals(chain.get(i).getHash(), cache.header(chain.get(i)).getHash());
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertTrue(cache.size() <= 1_024, "size " + cache.size());
+        assertEquals(4L * 3 * (chain.size() - 1), cache.getHits() + cache.getMisses());
+    }
+}
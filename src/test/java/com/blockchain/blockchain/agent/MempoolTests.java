@@ -0,0 +1,117 @@
+package com.blockchain.blockchain.agent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MempoolTests {
+
+    @Test
+    void selectsByFeeDeduplicatesAndEvictsLowestFee() {
+        Mempool mempool = new Mempool(3);
+        Transaction low = new Transaction("a", "b", 10, 1);
+        Transaction high = new Transaction("a", "c", 10, 9);
+        Transaction mid = new Transaction("b", "c", 10, 5);
+
+        assertEquals(Mempool.Status.ACCEPTED, mempool.add(low));
+        assertEquals(Mempool.Status.ACCEPTED, mempool.add(high));
+        assertEquals(Mempool.Status.ACCEPTED, mempool.add(mid));
+        assertEquals(Mempool.Status.DUPLICATE, mempool.add(high));
+        assertEquals(Mempool.Status.INVALID, mempool.add(new Transaction("a;b", "c", 1, 1)));
+
+        assertEquals(Mempool.Status.ACCEPTED, mempool.add(new Transaction("c", "d", 10, 7)));
+        assertFalse(mempool.contains(low.getHash()));
+        assertEquals(Mempool.Status.REJECTED, mempool.add(new Transaction("c", "e", 10, 0)));
+        assertEquals(3, mempool.size());
+
+        List<Transaction> selected = mempool.select(2);
+        assertEquals(List.of(9L, 7L), selected.stream().map(Transaction::getFee).toList());
+        assertEquals(3, mempool.size());
+
+        mempool.removeAll(Transaction.fromData(Transaction.toData(selected)));
+        assertEquals(1, mempool.size());
+        assertTrue(mempool.contains(mid.getHash()));
+    }
+
+    @Test
+    void restoreDropsTransactionsWhoseHashDoesNotMatchTheirFields() {
+        Mempool mempool = new Mempool(10);
+        Transaction valid = new Transaction("a", "b", 10, 1);
+        Transaction tampered = new Transaction("a", "c", 10, 1);
+        String data = Transaction.toData(List.of(valid, tampered)).replace(";c;10;1;", ";c;1000;1;");
+
+        assertEquals(1, mempool.restoreAll(Transaction.fromData(data)));
+
+        assertEquals(1, mempool.size());
+        assertTrue(mempool.contains(valid.getHash()));
+        assertFalse(mempool.contains(tampered.getHash()));
+    }
+
+    @Test
+    void concurrentSubmissionsKeepSizeConsistent() throws Exception {
+        int threads = 4;
+        int perThread = 20_000;
+        Mempool mempool = new Mempool(50_000);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final int thread = t;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    mempool.add(new Transaction("from-" + thread, "to-" + i, i, i % 100));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(50_000, mempool.size());
+        assertEquals(50_000, mempool.select(Integer.MAX_VALUE).size());
+        assertEquals(99, mempool.select(1).get(0).getFee());
+    }
+
+    @Test
+    void concurrentAddAndRemoveOfTheSameTransactionsLeaveNoOrphans() throws Exception {
+        Mempool mempool = new Mempool(1_000);
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            transactions.add(new Transaction("from", "to-" + i, i, i));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                final int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 200_000; i++) {
+                        Transaction transaction = transactions.get((i / 2 + thread) % transactions.size());
+                        if (i % 2 == thread % 2) {
+                            mempool.add(transaction); // Submissão pela REST
+                        } else {
+                            mempool.removeAll(List.of(transaction)); // Bloco recebido de um par
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        mempool.removeAll(transactions);
+
+        assertEquals(0, mempool.size());
+        assertTrue(mempool.select(Integer.MAX_VALUE).isEmpty()); // Nenhuma transação ficou na fila sem estar no mapa
+    }
+}
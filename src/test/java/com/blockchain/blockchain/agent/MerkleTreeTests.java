@@ -0,0 +1,66 @@
+package com.blockchain.blockchain.agent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MerkleTreeTests {
+
+    @Test
+    void everyEntryHasALogarithmicProof() {
+        for (int size : new int[]{1, 2, 3, 5, 8, MerkleTree.PARALLEL_THRESHOLD + 3}) {
+            String data = data(size);
+            String root = MerkleTree.root(data);
+            int depth = 32 - Integer.numberOfLeadingZeros(size - 1);
+            for (int position = 0; position < size; position += Math.max(1, size / 17)) {
+                List<MerkleProof.Step> path = MerkleTree.proof(data, position);
+                assertTrue(path.size() <= depth, "prova maior que log2(n)");
+                assertTrue(MerkleTree.verify("entry-" + position, path, root));
+                assertFalse(MerkleTree.verify("entry-x", path, root));
+            }
+        }
+    }
+
+    @Test
+    void rootCommitsToEveryEntryAndItsOrder() {
+        assertNull(MerkleTree.root(null));
+        assertNotEquals(MerkleTree.root("a\nb\nc"), MerkleTree.root("a\nb\nc\nc"));
+        assertNotEquals(MerkleTree.root("a\nb"), MerkleTree.root("b\na"));
+        assertEquals(MerkleTree.root(data(7)), MerkleTree.root(data(7)));
+    }
+
+    @Test
+    void minedBlockProvesTransactionWithoutTheBody() {
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            transactions.add(new Transaction("a", "b-" + i, i, i));
+        }
+        Block previous = new Genesis();
+        MiningJob job = new MiningJob(previous, "merkle", Transaction.toData(transactions), new MiningStats());
+        job.run();
+        Block block = job.resultNow();
+
+        MerkleProof proof = MerkleProof.of(block, transactions.get(6).getHash());
+        assertTrue(proof.verify());
+        assertNull(proof.getHeader().getData());
+        assertTrue(ChainValidator.isValid(block));
+
+        block.setData(Transaction.toData(transactions.subList(0, 9)));
+        assertFalse(ChainValidator.isValid(block));
+    }
+
+    private static String data(int size) {
+        StringBuilder data = new StringBuilder();
+        for (int i = 0; i < size; i++) {
+            data.append(i == 0 ? "" : "\n").append("entry-").append(i);
+        }
+        return data.toString();
+    }
+}
@@ -0,0 +1,152 @@
+package com.blockchain.blockchain.agent;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.blockchain.blockchain.agent.Message.MESSAGE_TYPE.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MessageCodecTests {
+
+    @Test
+    void binaryRoundTripKeepsAllBlockFields() throws Exception {
+        Message message = new Message.MessageBuilder()
+                .withType(RSP_ALL_BLOCKS)
+                .withSender(8001)
+                .withReceiver(8002)
+                .withBlocks(chain(50))
+                .build();
+
+        byte[] binary = MessageCodec.encode(message);
+        Message decoded = MessageCodec.decode(binary);
+
+        assertEquals(MessageCodec.VERSION, binary[0]);
+        assertEquals(RSP_ALL_BLOCKS, decoded.type);
+        assertEquals(8001, decoded.sender);
+        assertEquals(8002, decoded.receiver);
+        assertInstanceOf(Genesis.class, decoded.blocks.get(0));
+        assertEquals(message.blocks, decoded.blocks);
+        assertEquals(message.blocks.get(7).getNonce(), decoded.blocks.get(7).getNonce());
+        assertEquals(message.blocks.get(7).getDifficulty(), decoded.blocks.get(7).getDifficulty());
+        assertEquals("data-7", decoded.blocks.get(7).getData());
+    }
+
+    @Test
+    void binaryIsSmallerThanJavaSerializationAndBothAreReadable() throws Exception {
+        Message message = new Message.MessageBuilder().withType(RSP_ALL_BLOCKS).withBlocks(chain(100)).build();
+        byte[] binary = MessageCodec.encode(message);
+        MessageCodec.legacy = true;
+        byte[] legacy;
+        try {
+            legacy = MessageCodec.encode(message);
+        } finally {
+            MessageCodec.legacy = false;
+        }
+
+        assertTrue(binary.length < legacy.length, binary.length + " vs " + legacy.length);
+        MessageCodec.legacyRead = true;
+        try {
+            assertEquals(MessageCodec.decode(legacy).blocks, MessageCodec.decode(binary).blocks);
+        } finally {
+            MessageCodec.legacyRead = false;
+        }
+    }
+
+    @Test
+    void javaSerializationIsReadOnlyWhenEnabledAndOnlyForMessageClasses() throws Exception {
+        Message message = new Message.MessageBuilder().withType(INFO_NEW_BLOCK).withBlocks(List.of(chain(2).get(1))).build();
+        MessageCodec.legacy = true;
+        byte[] legacy;
+        try {
+            legacy = MessageCodec.encode(message);
+        } finally {
+            MessageCodec.legacy = false;
+        }
+        ByteArrayOutputStream other = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(other)) {
+            out.writeObject(new HashMap<>(Map.of("type", "INFO_NEW_BLOCK")));
+        }
+
+        assertThrows(IOException.class, () -> MessageCodec.decode(legacy));
+        MessageCodec.legacyRead = true;
+        try {
+            assertEquals(message.blocks, MessageCodec.decode(legacy).blocks);
+            assertThrows(InvalidClassException.class, () -> MessageCodec.decode(other.toByteArray()));
+        } finally {
+            MessageCodec.legacyRead = false;
+        }
+    }
+
+    @Test
+    void genesisKeepsItsDifficultyAndTimestamp() throws Exception {
+        Genesis genesis = new Genesis(7);
+        genesis.setTimestamp(1_700_000_000_000L);
+
+        Block decoded = MessageCodec.decodeBlock(MessageCodec.encodeBlock(genesis));
+
+        assertInstanceOf(Genesis.class, decoded);
+        assertEquals(genesis, decoded);
+        assertEquals(7, decoded.getDifficulty());
+        assertEquals(1_700_000_000_000L, decoded.getTimestamp());
+    }
+
+    @Test
+    void blockCountLargerThanTheFrameIsRejected() {
+        MessageCodec.Writer out = new MessageCodec.Writer(16);
+        out.writeByte(MessageCodec.VERSION);
+        out.writeByte(RSP_BLOCKS.ordinal());
+        out.writeVarInt(8001);
+        out.writeVarInt(8002);
+        out.writeUnsignedVarInt(Integer.MAX_VALUE); // Pede uma lista de 2^31 blocos em um quadro de 10 bytes
+
+        assertThrows(IOException.class, () -> MessageCodec.decode(out.toByteArray()));
+    }
+
+    @Test
+    void syncFieldsRoundTrip() throws Exception {
+        String tip = Utils.hash256("tip");
+        Message decoded = MessageCodec.decode(MessageCodec.encode(new Message.MessageBuilder()
+                .withType(INFO_TIP).withHeight(1234).withCount(128).withHash(tip).build()));
+        assertEquals(INFO_TIP, decoded.type);
+        assertEquals(1234, decoded.height);
+        assertEquals(128, decoded.count);
+        assertEquals(tip, decoded.hash);
+    }
+
+    @Test
+    void messageWithoutBlocks() throws Exception {
+        Message decoded = MessageCodec.decode(MessageCodec.encode(new Message.MessageBuilder().withType(REQ_ALL_BLOCKS).build()));
+        assertEquals(REQ_ALL_BLOCKS, decoded.type);
+        assertNull(decoded.blocks);
+    }
+
+    static List<Block> chain(int size) {
+        List<Block> blocks = new ArrayList<>();
+        blocks.add(new Genesis());
+        for (int i = 1; i < size; i++) {
+            Block block = new Block();
+            block.setIndex(i);
+            block.setTimestamp(1_700_000_000_000L + i);
+            block.setPreviousHash(blocks.get(i - 1).getHash());
+            block.setHash(Utils.hash256("block-" + i));
+            block.setCreator("agent-" + (i % 3));
+            block.setNonce(i * 31);
+            block.setDifficulty(blocks.get(0).getDifficulty());
+            block.setData("data-" + i);
+            blocks.add(block);
+        }
+        return blocks;
+    }
+}
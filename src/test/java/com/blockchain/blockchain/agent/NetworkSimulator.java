@@ -0,0 +1,308 @@
+package com.blockchain.blockchain.agent;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Simulador de uma rede de agentes locais, usado para medir mudanças de rede e de consenso antes de adotá-las.
+ *
+ * Inicia N agentes pelo AgentManager em portas de loopback, com a dificuldade inicial e o intervalo desejado
+ * entre blocos do cenário (a dificuldade se ajusta durante a simulação), e aplica às mensagens
+ * latência, variação, perda e uma partição em duas metades durante um intervalo. Ao final da mineração,
+ * o agente com a ponta mais alta minera um último bloco, que desempata ramos com o mesmo trabalho, e o
+ * simulador mede o tempo até todos os agentes terem esse bloco como ponta. O relatório, em JSON, traz o tempo
+ * de propagação dos blocos, a taxa de blocos órfãos, a frequência de bifurcações e o tempo de convergência.
+ *
+ * Uso: java ... NetworkSimulator, com o cenário em propriedades do sistema (veja Scenario.fromSystemProperties)
+ * e o relatório gravado em -Dsim.report (padrão target/network-report.json).
+ */
+class NetworkSimulator {
+
+    /*
+     * Cenário simulado. Os tempos estão em ms, contados a partir do início da mineração.
+     */
+    record Scenario(int agents, int basePort, int difficulty, long blockIntervalMillis, long miningMillis,
+                    long latencyMillis, long jitterMillis, double loss,
+                    long partitionFromMillis, long partitionMillis, long convergenceTimeoutMillis) {
+
+        static Scenario fromSystemProperties() {
+            return new Scenario(
+                    Integer.getInteger("sim.agents", 20),
+                    Integer.getInteger("sim.port", 19000),
+                    Integer.getInteger("sim.difficulty", 12),
+                    Long.getLong("sim.block.interval.ms", 1000),
+                    Long.getLong("sim.mining.ms", 20_000),
+                    Long.getLong("sim.latency.ms", 50),
+                    Long.getLong("sim.jitter.ms", 20),
+                    Double.parseDouble(System.getProperty("sim.loss", "0")),
+                    Long.getLong("sim.partition.from.ms", 0),
+                    Long.getLong("sim.partition.ms", 0),
+                    Long.getLong("sim.convergence.timeout.ms", 30_000));
+        }
+    }
+
+    /*
+     * Resumo de uma distribuição de tempos, em ms.
+     */
+    record Distribution(int samples, double p50, double p90, double p99, double max) {
+
+        static Distribution of(List<Double> values) {
+            if (values.isEmpty()) {
+                return new Distribution(0, 0, 0, 0, 0);
+            }
+            List<Double> sorted = new ArrayList<>(values);
+            Collections.sort(sorted);
+            return new Distribution(sorted.size(), percentile(sorted, 0.5), percentile(sorted, 0.9),
+                    percentile(sorted, 0.99), sorted.get(sorted.size() - 1));
+        }
+
+        private static double percentile(List<Double> sorted, double p) {
+            return sorted.get((int) Math.min(sorted.size() - 1, Math.ceil(p * sorted.size()) - 1));
+        }
+    }
+
+    /*
+     * Relatório da simulação.
+     * staleRate: fração dos blocos minerados que ficaram fora do ramo final (órfãos).
+     * forkRate: fração das alturas do ramo final em que mais de um bloco foi minerado.
+     * propagation: tempo entre a mineração de um bloco e a chegada dele a cada um dos outros agentes.
+     * fullPropagation: tempo até um bloco do ramo final chegar a todos os agentes.
+     */
+    record Report(Scenario scenario, boolean virtualThreads, long blocksMined, int finalHeight,
+                  long staleBlocks, double staleRate, long forkedHeights, double forkRate,
+                  long reorganizations, long orphanArrivals, double coverage,
+                  Distribution propagation, Distribution fullPropagation,
+                  boolean converged, long convergenceMillis) {
+    }
+
+    /*
+     * Condições da rede simulada: mesma latência para todos os enlaces, com variação uniforme,
+     * perda independente por mensagem e, enquanto particionada, nenhuma mensagem entre as duas metades.
+     */
+    static final class SimulatedNetwork implements NetworkConditions {
+        private final Scenario scenario;
+        private volatile boolean partitioned;
+
+        SimulatedNetwork(Scenario scenario) {
+            this.scenario = scenario;
+        }
+
+        void setPartitioned(boolean partitioned) {
+            this.partitioned = partitioned;
+        }
+
+        @Override
+        public long delay(int from, int to) {
+            if (partitioned && half(from) != half(to)) {
+                return -1;
+            }
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            if (scenario.loss() > 0 && random.nextDouble() < scenario.loss()) {
+                return -1;
+            }
+            long jitter = scenario.jitterMillis() > 0 ? random.nextLong(-scenario.jitterMillis(), scenario.jitterMillis() + 1) : 0;
+            return Math.max(0, scenario.latencyMillis() + jitter);
+        }
+
+        private boolean half(int port) {
+            return port - scenario.basePort() < scenario.agents() / 2;
+        }
+    }
+
+    /*
+     * Registra os blocos minerados e a primeira chegada de cada bloco a cada agente.
+     */
+    private static final class Recorder implements Agent.BlockListener {
+        private final Map<String, Long> minedAt = new ConcurrentHashMap<>(); // Momento da mineração, por hash
+        private final Map<String, Integer> minedHeight = new ConcurrentHashMap<>(); // Altura, por hash
+        private final Map<String, Integer> minedBy = new ConcurrentHashMap<>(); // Porta do agente que minerou, por hash
+        private final Map<String, Map<Integer, Long>> arrivals = new ConcurrentHashMap<>(); // Chegada por agente, por hash
+        private final AtomicLong reorganizations = new AtomicLong();
+        private final AtomicLong orphans = new AtomicLong();
+
+        @Override
+        public void onMined(Agent agent, Block block) {
+            minedAt.put(block.getHash(), System.nanoTime());
+            minedHeight.put(block.getHash(), block.getIndex());
+            minedBy.put(block.getHash(), agent.getPort());
+        }
+
+        @Override
+        public void onBlock(Agent agent, Block block, BlockTree.Status status) {
+            switch (status) {
+                case REORGANIZED:
+                    reorganizations.incrementAndGet();
+                    arrived(agent, block);
+                    break;
+                case EXTENDED:
+                case SIDE_BRANCH:
+                    arrived(agent, block);
+                    break;
+                case ORPHAN:
+                    orphans.incrementAndGet();
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        /*
+         * Registra a primeira chegada do bloco ao agente.
+         */
+        private void arrived(Agent agent, Block block) {
+            arrivals.computeIfAbsent(block.getHash(), h -> new ConcurrentHashMap<>())
+                    .putIfAbsent(agent.getPort(), System.nanoTime());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.setOut(new java.io.PrintStream(java.io.OutputStream.nullOutputStream())); // Os agentes registram cada mensagem
+        Report report = run(Scenario.fromSystemProperties());
+        Path path = Paths.get(System.getProperty("sim.report", "target/network-report.json"));
+        write(report, path);
+        System.err.println("Relatório gravado em " + path.toAbsolutePath());
+        System.exit(0);
+    }
+
+    /*
+     * Executa o cenário e retorna o relatório. O intervalo entre blocos configurado é restaurado ao final.
+     */
+    static Report run(Scenario scenario) throws InterruptedException {
+        String blockInterval = System.getProperty("blockchain.block.interval.ms");
+        System.setProperty("blockchain.block.interval.ms", String.valueOf(scenario.blockIntervalMillis()));
+        SimulatedNetwork network = new SimulatedNetwork(scenario);
+        Recorder recorder = new Recorder();
+        AgentManager manager = new AgentManager(new Genesis(scenario.difficulty()));
+        manager.setNetworkConditions(network);
+        try {
+            for (int i = 0; i < scenario.agents(); i++) {
+                manager.addAgent("sim" + i, scenario.basePort() + i).setBlockListener(recorder);
+            }
+            long start = System.currentTimeMillis();
+            if (scenario.partitionMillis() > 0) {
+                sleepUntil(start + scenario.partitionFromMillis());
+                network.setPartitioned(true);
+                sleepUntil(start + scenario.partitionFromMillis() + scenario.partitionMillis());
+                network.setPartitioned(false);
+            }
+            sleepUntil(start + scenario.miningMillis());
+            manager.getAllAgents().forEach(Agent::stopMine);
+
+            long stopped = System.nanoTime();
+            long deadline = System.currentTimeMillis() + scenario.convergenceTimeoutMillis();
+            Block last = null;
+            while (last == null && System.currentTimeMillis() < deadline) {
+                last = highest(manager.getAllAgents()).createBlock(); // Null se a ponta mudou durante a mineração
+            }
+            boolean converged = last != null && isConverged(manager.getAllAgents(), last.getHash());
+            while (last != null && !converged && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+                converged = isConverged(manager.getAllAgents(), last.getHash());
+            }
+            long convergenceMillis = (System.nanoTime() - stopped) / 1_000_000;
+            return report(scenario, recorder, manager.getAllAgents(), converged, convergenceMillis);
+        } finally {
+            manager.deleteAllAgents();
+            if (blockInterval == null) {
+                System.clearProperty("blockchain.block.interval.ms");
+            } else {
+                System.setProperty("blockchain.block.interval.ms", blockInterval);
+            }
+        }
+    }
+
+    static void write(Report report, Path path) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(path.toFile(), report);
+    }
+
+    private static Report report(Scenario scenario, Recorder recorder, List<Agent> agents, boolean converged, long convergenceMillis) {
+        Agent reference = agents.get(0);
+        Set<String> finalChain = new HashSet<>();
+        for (Block block : reference.getBlocks()) {
+            finalChain.add(block.getHash());
+        }
+        long mined = recorder.minedAt.size();
+        long stale = recorder.minedAt.keySet().stream().filter(hash -> !finalChain.contains(hash)).count();
+
+        Map<Integer, Integer> minedPerHeight = new HashMap<>();
+        recorder.minedHeight.values().forEach(height -> minedPerHeight.merge(height, 1, Integer::sum));
+        int finalHeight = reference.getLatestBlock().getIndex();
+        long forked = minedPerHeight.entrySet().stream()
+                .filter(entry -> entry.getKey() <= finalHeight && entry.getValue() > 1).count();
+        long heights = minedPerHeight.keySet().stream().filter(height -> height <= finalHeight).count();
+
+        List<Double> propagation = new ArrayList<>();
+        List<Double> fullPropagation = new ArrayList<>();
+        long pairs = 0;
+        for (Map.Entry<String, Long> entry : recorder.minedAt.entrySet()) {
+            Map<Integer, Long> arrivals = recorder.arrivals.getOrDefault(entry.getKey(), Map.of());
+            int miner = recorder.minedBy.get(entry.getKey());
+            long last = entry.getValue();
+            int reached = 0;
+            for (Map.Entry<Integer, Long> arrival : arrivals.entrySet()) {
+                if (arrival.getKey() != miner) {
+                    long delay = Math.max(0, arrival.getValue() - entry.getValue());
+                    propagation.add(delay / 1e6);
+                    last = Math.max(last, arrival.getValue());
+                    reached++;
+                }
+            }
+            pairs += reached;
+            if (finalChain.contains(entry.getKey()) && reached >= agents.size() - 1) {
+                fullPropagation.add((last - entry.getValue()) / 1e6);
+            }
+        }
+        double coverage = mined == 0 || agents.size() < 2 ? 0 : (double) pairs / (mined * (agents.size() - 1));
+
+        return new Report(scenario, AgentConfig.virtualThreads(), mined, finalHeight,
+                stale, mined == 0 ? 0 : (double) stale / mined,
+                forked, heights == 0 ? 0 : (double) forked / heights,
+                recorder.reorganizations.get(), recorder.orphans.get(), coverage,
+                Distribution.of(propagation), Distribution.of(fullPropagation),
+                converged, convergenceMillis);
+    }
+
+    private static Agent highest(List<Agent> agents) {
+        Agent highest = agents.get(0);
+        for (Agent agent : agents) {
+            if (agent.getLatestBlock().getIndex() > highest.getLatestBlock().getIndex()) {
+                highest = agent;
+            }
+        }
+        return highest;
+    }
+
+    private static boolean isConverged(List<Agent> agents, String tip) {
+        for (Agent agent : agents) {
+            if (!tip.equals(agent.getLatestBlock().getHash())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void sleepUntil(long time) throws InterruptedException {
+        long remaining = time - System.currentTimeMillis();
+        if (remaining > 0) {
+            Thread.sleep(remaining);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.blockchain.blockchain.agent;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NetworkSimulatorTests {
+
+    @Test
+    void partitionedNetworkConvergesAfterHealingAndReportsPropagation(@TempDir Path directory) throws Exception {
+        NetworkSimulator.Scenario scenario = new NetworkSimulator.Scenario(6, 18500, 12, 250, 4000,
+                20, 10, 0, 500, 1500, 20_000);
+
+        NetworkSimulator.Report report = NetworkSimulator.run(scenario);
+
+        assertTrue(report.converged());
+        assertTrue(report.blocksMined() > 0);
+        assertTrue(report.finalHeight() > 0);
+        assertTrue(report.propagation().samples() > 0);
+        // Nenhuma mensagem é entregue antes da latência mínima simulada
+        assertTrue(report.propagation().p50() >= 10);
+
+        Path path = directory.resolve("report.json");
+        NetworkSimulator.write(report, path);
+        JsonNode json = new ObjectMapper().readTree(path.toFile());
+        assertEquals(report.blocksMined(), json.get("blocksMined").asLong());
+        assertEquals(6, json.get("scenario").get("agents").asInt());
+    }
+}
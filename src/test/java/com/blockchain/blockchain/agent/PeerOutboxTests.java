@@ -0,0 +1,66 @@
+package com.blockchain.blockchain.agent;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PeerOutboxTests {
+
+    @Test
+    void newerTipReplacesUnsentTipInPlace() {
+        TransportStats stats = new TransportStats();
+        PeerOutbox outbox = new PeerOutbox(8, stats);
+
+        assertTrue(outbox.offer(new byte[]{1}, true));
+        assertTrue(outbox.offer(new byte[]{2}, false));
+        assertTrue(outbox.offer(new byte[]{3}, true));
+
+        assertEquals(2, outbox.size());
+        assertEquals(1, stats.getFramesCoalesced());
+        assertEquals(3, next(outbox));
+        assertEquals(2, next(outbox));
+        assertTrue(outbox.isEmpty());
+        assertEquals(0, stats.getQueueDepth());
+        assertEquals(2, stats.getFramesSent());
+    }
+
+    @Test
+    void tipBeingWrittenIsNotReplaced() {
+        PeerOutbox outbox = new PeerOutbox(8, new TransportStats());
+
+        outbox.offer(new byte[]{1}, true);
+        ByteBuffer writing = outbox.peek();
+        outbox.offer(new byte[]{2}, true);
+
+        assertEquals(2, outbox.size());
+        assertEquals(1, writing.get(0));
+    }
+
+    @Test
+    void fullOrClosedQueueDropsFrames() throws InterruptedException {
+        TransportStats stats = new TransportStats();
+        PeerOutbox outbox = new PeerOutbox(2, stats);
+
+        assertTrue(outbox.offer(new byte[]{1}, false));
+        assertTrue(outbox.offer(new byte[]{2}, false));
+        assertFalse(outbox.offer(new byte[]{3}, false));
+        assertEquals(2, stats.getMaxQueueDepth());
+
+        outbox.close();
+        assertFalse(outbox.offer(new byte[]{4}, false));
+        assertNull(outbox.take());
+        assertEquals(4, stats.getFramesDropped());
+        assertEquals(0, stats.getQueueDepth());
+    }
+
+    private static int next(PeerOutbox outbox) {
+        ByteBuffer buffer = outbox.peek();
+        outbox.remove();
+        return buffer.get(0);
+    }
+}
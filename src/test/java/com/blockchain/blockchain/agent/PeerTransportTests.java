@@ -0,0 +1,107 @@
+package com.blockchain.blockchain.agent;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.DataOutputStream;
+import java.io.InputStream;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static com.blockchain.blockchain.agent.Message.MESSAGE_TYPE.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PeerTransportTests {
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void requestAndReplyShareOnePersistentConnection(boolean virtualThreads) throws Exception {
+        BlockingQueue<Message> received = new LinkedBlockingQueue<>();
+        Genesis genesis = new Genesis();
+        int serverPort = virtualThreads ? 18473 : 18471;
+        int clientPort = serverPort + 1;
+
+        PeerTransport server = new PeerTransport(serverPort, (connection, message) -> {
+            try {
+                connection.send(new Message.MessageBuilder()
+                        .withType(RSP_ALL_BLOCKS)
+                        .withSender(serverPort)
+                        .withBlocks(List.of(genesis))
+                        .build());
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }, Executors.newSingleThreadExecutor(), virtualThreads);
+        PeerTransport client = new PeerTransport(clientPort, (connection, message) -> received.add(message),
+                Executors.newSingleThreadExecutor(), virtualThreads);
+        server.start();
+        client.start();
+        try {
+            for (int i = 0; i < 3; i++) {
+                client.send("localhost", serverPort, new Message.MessageBuilder().withType(REQ_ALL_BLOCKS).withSender(clientPort).build());
+            }
+            for (int i = 0; i < 3; i++) {
+                Message reply = received.poll(5, TimeUnit.SECONDS);
+                assertNotNull(reply);
+                assertEquals(RSP_ALL_BLOCKS, reply.type);
+                assertEquals(genesis.getHash(), reply.blocks.get(0).getHash());
+            }
+        } finally {
+            client.stop();
+            server.stop();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void oversizedFrameClosesTheConnectionAndUnfinishedFramesDoNotBlockOthers(boolean virtualThreads) throws Exception {
+        BlockingQueue<Message> received = new LinkedBlockingQueue<>();
+        int serverPort = virtualThreads ? 18477 : 18475;
+        PeerTransport server = new PeerTransport(serverPort, (connection, message) -> received.add(message),
+                Executors.newSingleThreadExecutor(), virtualThreads);
+        server.start();
+        List<Socket> unfinished = new ArrayList<>();
+        try {
+            try (Socket socket = new Socket("localhost", serverPort)) {
+                socket.setSoTimeout(5000);
+                new DataOutputStream(socket.getOutputStream()).writeInt(PeerTransport.MAX_FRAME_SIZE + 1);
+                InputStream in = socket.getInputStream();
+                assertEquals(-1, in.read()); // Fechada pelo servidor, sem esperar pelos bytes declarados
+            }
+
+            // Quadros do maior tamanho aceito que nunca terminam: o buffer só cresce com os bytes recebidos
+            for (int i = 0; i < 32; i++) {
+                Socket socket = new Socket("localhost", serverPort);
+                DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+                out.writeInt(PeerTransport.MAX_FRAME_SIZE);
+                out.write(new byte[100]);
+                out.flush();
+                unfinished.add(socket);
+            }
+
+            try (Socket socket = new Socket("localhost", serverPort)) {
+                byte[] frame = MessageCodec.encode(new Message.MessageBuilder().withType(REQ_ALL_BLOCKS).withSender(18478).build());
+                DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+                out.writeInt(frame.length);
+                out.write(frame);
+                out.flush();
+                Message message = received.poll(5, TimeUnit.SECONDS);
+                assertNotNull(message);
+                assertEquals(REQ_ALL_BLOCKS, message.type);
+            }
+            assertTrue(received.isEmpty());
+        } finally {
+            for (Socket socket : unfinished) {
+                socket.close();
+            }
+            server.stop();
+        }
+    }
+}
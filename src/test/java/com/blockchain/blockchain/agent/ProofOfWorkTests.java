@@ -0,0 +1,76 @@
+package com.blockchain.blockchain.agent;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProofOfWorkTests {
+
+    @Test
+    void minedHashMeetsDifficultyAndMatchesHeader() throws Exception {
+        Block block = newBlock(12);
+
+        Map<String, String> result = new ProofOfWork(block).run();
+
+        String hash = result.get("hash");
+        int nonce = Integer.parseInt(result.get("nonce"));
+        assertTrue(hash.startsWith("000"), hash);
+
+        ByteBuffer header = ByteBuffer.allocate(ProofOfWork.HEADER_SIZE)
+                .put(Utils.hashToBytes(block.getPreviousHash()))
+                .put(Utils.hashToBytes(block.getMerkleRoot()))
+                .putLong(block.getTimestamp())
+                .putInt(12)
+                .putInt(nonce);
+        assertEquals(Utils.toHex(MessageDigest.getInstance("SHA-256").digest(header.array())), hash);
+    }
+
+    @Test
+    void parallelSearchFindsSameNonceAsSequential() {
+        Block block = newBlock(14);
+
+        assertEquals(new ProofOfWork(block).run(1), new ProofOfWork(block).run(4));
+    }
+
+    @Test
+    void cancelledJobStopsMining() {
+        MiningStats stats = new MiningStats();
+        MiningJob job = new MiningJob(new Genesis(), "test", null, 64, stats);
+
+        CompletableFuture.runAsync(() -> job.cancel(false), CompletableFuture.delayedExecutor(50, TimeUnit.MILLISECONDS));
+        assertTimeoutPreemptively(Duration.ofSeconds(5), job::run);
+
+        assertTrue(job.isCancelled());
+        assertEquals(1, stats.getJobsCancelled());
+        assertTrue(stats.getHashesAbandoned() > 0);
+    }
+
+    @Test
+    void hashHexRoundTrip() {
+        String hash = Utils.hash256("Genesis");
+        assertEquals(hash, Utils.toHex(Utils.hashToBytes(hash)));
+        assertTrue(Utils.hasLeadingZeroBits(new byte[]{0, 0x0f}, 12));
+        assertTrue(!Utils.hasLeadingZeroBits(new byte[]{0, 0x1f}, 12));
+    }
+
+    private static Block newBlock(int difficulty) {
+        Block block = new Block();
+        block.setDifficulty(difficulty);
+        block.setIndex(1);
+        block.setPreviousHash(new Genesis().getHash());
+        block.setTimestamp(1_700_000_000_000L);
+        block.setCreator("test");
+        block.setData("entry-1\nentry-2");
+        block.setMerkleRoot(MerkleTree.root(block.getData()));
+        return block;
+    }
+}
@@ -0,0 +1,76 @@
+package com.blockchain.blockchain.web;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class AgentControllerTests {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final MockMvc mvc = MockMvcBuilders.standaloneSetup(new AgentController(mapper)).build();
+
+    @AfterEach
+    void deleteAgents() throws Exception {
+        mvc.perform(delete("/agent/all")).andExpect(status().isOk());
+    }
+
+    @Test
+    void pagesBlocksLooksThemUpByHashAndStreamsThemAsNdjson() throws Exception {
+        mvc.perform(post("/agent").param("name", "web").param("port", "18600")).andExpect(status().isOk());
+        mvc.perform(post("/agent/mine").param("agent", "web")).andExpect(status().isOk());
+
+        MvcResult page = mvc.perform(get("/agent/blocks").param("agent", "web").param("from", "0").param("count", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.from").value(0))
+                .andExpect(jsonPath("$.blocks.length()").value(1))
+                .andExpect(jsonPath("$.blocks[0].index").value(0))
+                .andExpect(jsonPath("$.next").value(1))
+                .andReturn();
+        String rootHash = mapper.readTree(page.getResponse().getContentAsString()).at("/blocks/0/hash").asText();
+
+        mvc.perform(get("/agent/block").param("agent", "web").param("hash", rootHash))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.index").value(0));
+        mvc.perform(get("/agent/block").param("agent", "web").param("hash", "missing"))
+                .andExpect(status().isNotFound());
+        mvc.perform(get("/agent/blocks").param("agent", "nobody"))
+                .andExpect(status().isNotFound());
+
+        mvc.perform(get("/agent/all").param("blocks", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.agents.length()").value(1))
+                .andExpect(jsonPath("$.blocks.length()").value(1));
+
+        MvcResult stream = mvc.perform(get("/agent/blocks/stream").param("agent", "web").param("to", "1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mvc.perform(asyncDispatch(stream))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(body.endsWith("\n"));
+        JsonNode root = mapper.readTree(lines[0]);
+        JsonNode next = mapper.readTree(lines[1]);
+        assertEquals(0, root.get("index").asInt());
+        assertEquals(1, next.get("index").asInt());
+        assertEquals(rootHash, next.get("previousHash").asText());
+    }
+}